@@ -0,0 +1,114 @@
+package com.example.chatserver.chat.config;
+
+import com.example.chatserver.InMemoryChatServer;
+import com.example.chatserver.chat.domain.ChatParticipant;
+import com.example.chatserver.chat.domain.ChatRoom;
+import com.example.chatserver.chat.repository.ChatParticipantRepository;
+import com.example.chatserver.chat.repository.ChatRoomRepository;
+import com.example.chatserver.common.auth.JwtTokenProvider;
+import com.example.chatserver.member.domain.Member;
+import com.example.chatserver.member.repository.MemberRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// StompHandler.preSend 프레임별 처리 시간 (member, 참여자 캐시가 채워진 상태)
+// - connect   : JWT 서명 검증 + member 조회 + principal 설정
+// - subscribe : 참여자 확인 (room 구독 수 갱신은 SessionSubscribeEvent에서 처리)
+// - send      : 참여자 확인
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StompHandlerBenchmark {
+
+    private InMemoryChatServer server;
+    private StompHandler stompHandler;
+
+    private Message<?> connect;
+    private Message<?> subscribe;
+    private Message<?> send;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = InMemoryChatServer.start();
+        stompHandler = server.getBean(StompHandler.class);
+
+        Member member = server.getBean(MemberRepository.class).save(Member.builder()
+                .name("bench").email("bench@example.com").password("password").build());
+        ChatRoom chatRoom = server.getBean(ChatRoomRepository.class).save(ChatRoom.builder()
+                .name("bench").isGroupChat("Y").build());
+        server.getBean(ChatParticipantRepository.class).save(ChatParticipant.builder()
+                .chatRoom(chatRoom).member(member).build());
+        String token = server.getBean(JwtTokenProvider.class).createToken(member.getEmail(), member.getRole().toString());
+
+        connect = frame(StompCommand.CONNECT, "bench-session", null);
+        StompHeaderAccessor.getAccessor(connect, StompHeaderAccessor.class).setNativeHeader("Authorization", "Bearer " + token);
+
+        // 실제 세션처럼 CONNECT를 먼저 처리해 principal, memberId를 세션에 저장
+        Map<String, Object> sessionAttributes = StompHeaderAccessor.getAccessor(connect, StompHeaderAccessor.class).getSessionAttributes();
+        stompHandler.preSend(connect, null);
+
+        String destination = "/topic/" + chatRoom.getId();
+        Message<?> anchor = frame(StompCommand.SUBSCRIBE, "anchor-session", sessionAttributes);
+        StompHeaderAccessor.getAccessor(anchor, StompHeaderAccessor.class).setDestination(destination);
+        StompHeaderAccessor.getAccessor(anchor, StompHeaderAccessor.class).setSubscriptionId("sub-0");
+        stompHandler.preSend(anchor, null);
+
+        subscribe = frame(StompCommand.SUBSCRIBE, "bench-session", sessionAttributes);
+        StompHeaderAccessor.getAccessor(subscribe, StompHeaderAccessor.class).setDestination(destination);
+        StompHeaderAccessor.getAccessor(subscribe, StompHeaderAccessor.class).setSubscriptionId("sub-0");
+
+        send = frame(StompCommand.SEND, "bench-session", sessionAttributes);
+        StompHeaderAccessor.getAccessor(send, StompHeaderAccessor.class).setDestination("/publish/" + chatRoom.getId());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Benchmark
+    public Message<?> connect() {
+        return stompHandler.preSend(connect, null);
+    }
+
+    @Benchmark
+    public Message<?> subscribe() {
+        return stompHandler.preSend(subscribe, null);
+    }
+
+    @Benchmark
+    public Message<?> send() {
+        return stompHandler.preSend(send, null);
+    }
+
+    // StompSubProtocolHandler가 만드는 inbound 메세지처럼 mutable accessor를 가진 프레임
+    private static Message<?> frame(StompCommand command, String sessionId, Map<String, Object> sessionAttributes) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        accessor.setSessionAttributes(sessionAttributes == null ? new ConcurrentHashMap<>() : sessionAttributes);
+        if(sessionAttributes != null) {
+            accessor.setUser(new UsernamePasswordAuthenticationToken("bench@example.com", "", List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+        }
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+}
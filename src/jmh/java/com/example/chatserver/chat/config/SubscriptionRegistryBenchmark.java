@@ -0,0 +1,92 @@
+package com.example.chatserver.chat.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.DefaultSubscriptionRegistry;
+import org.springframework.messaging.simp.broker.SubscriptionRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MultiValueMap;
+
+import java.util.concurrent.TimeUnit;
+
+// simple broker의 destination -> 구독 조회 : spring 기본 registry vs RoomSubscriptionRegistry
+// subscriptions개의 /topic/{roomId} 구독을 rooms개 room에 나눠 등록한 뒤, room을 돌아가며 조회
+// 구독/해제 비용 : largeRoomSize명이 있는 room에 세션 1개가 구독 후 해제 (입장/퇴장이 몰릴 때 room 크기에 비례하면 안 된다)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SubscriptionRegistryBenchmark {
+
+    @Param({"default", "room"})
+    private String registry;
+
+    @Param({"100000"})
+    private int subscriptions;
+
+    @Param({"10000"})
+    private int rooms;
+
+    @Param({"10000"})
+    private int largeRoomSize;
+
+    private SubscriptionRegistry subscriptionRegistry;
+    private Message<?>[] messages;
+    private int next;
+    private Message<?> largeRoomSubscribe;
+
+    @Setup
+    public void setUp() {
+        subscriptionRegistry = "room".equals(registry) ? new RoomSubscriptionRegistry("/topic/") : new DefaultSubscriptionRegistry();
+        for(int i = 0; i < subscriptions; i++) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+            accessor.setSessionId("session-" + i);
+            accessor.setSubscriptionId("sub-0");
+            accessor.setDestination("/topic/" + (i % rooms));
+            subscriptionRegistry.registerSubscription(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+        }
+        for(int i = 0; i < largeRoomSize; i++) {
+            subscriptionRegistry.registerSubscription(subscribe("large-" + i, "/topic/" + rooms));
+        }
+        largeRoomSubscribe = subscribe("churn", "/topic/" + rooms);
+
+        // ChatDeliveryService가 보내는 메세지와 같은 헤더 (destination + roomId 헤더)
+        messages = new Message<?>[rooms];
+        for(int roomId = 0; roomId < rooms; roomId++) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setDestination("/topic/" + roomId);
+            accessor.setHeader(RoomSubscriptionRegistry.ROOM_ID_HEADER, (long) roomId);
+            messages[roomId] = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        }
+    }
+
+    @Benchmark
+    public MultiValueMap<String, String> findSubscriptions() {
+        Message<?> message = messages[next];
+        next = next + 1 == messages.length ? 0 : next + 1;
+        return subscriptionRegistry.findSubscriptions(message);
+    }
+
+    @Benchmark
+    public void subscribeAndUnsubscribeInLargeRoom() {
+        subscriptionRegistry.registerSubscription(largeRoomSubscribe);
+        subscriptionRegistry.unregisterAllSubscriptions("churn");
+    }
+
+    private static Message<?> subscribe(String sessionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId("sub-0");
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.example.chatserver.chat.service;
+
+import com.example.chatserver.chat.dto.ChatMessageDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// ChatMessageDto JSON 처리
+// - serialize : ChatBroadcastService (redis 발행 전 1회 직렬화)
+// - parse     : StomController 수신 (SEND body -> ChatMessageDto)
+// - sentAt    : 수신 노드의 end-to-end 지연 측정 (파싱 없이 byte 검색)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ChatMessageJsonBenchmark {
+
+    @Param({"32", "512"})
+    private int messageLength;
+
+    private ObjectWriter chatMessageWriter;
+    private ObjectReader chatMessageReader;
+    private ChatMessageDto chatMessageDto;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        // 스프링 기본 설정과 같은 ObjectMapper (JavaTimeModule 등)
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        chatMessageWriter = objectMapper.writerFor(ChatMessageDto.class);
+        chatMessageReader = objectMapper.readerFor(ChatMessageDto.class);
+        chatMessageDto = ChatMessageDto.builder()
+                .roomId(42L)
+                .messageId(1234567L)
+                .message("가".repeat(messageLength))
+                .senderEmail("sender@example.com")
+                .createdTime(LocalDateTime.now())
+                .originNodeId("node-1")
+                .sentAt(System.currentTimeMillis())
+                .build();
+        payload = chatMessageWriter.writeValueAsBytes(chatMessageDto);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return chatMessageWriter.writeValueAsBytes(chatMessageDto);
+    }
+
+    @Benchmark
+    public ChatMessageDto parse() throws IOException {
+        return chatMessageReader.readValue(payload);
+    }
+
+    @Benchmark
+    public long sentAt() {
+        return ChatMetrics.sentAtOf(payload);
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.example.chatserver.chat.service;
+
+import com.example.chatserver.InMemoryChatServer;
+import com.example.chatserver.chat.domain.ChatMessage;
+import com.example.chatserver.chat.domain.ChatParticipant;
+import com.example.chatserver.chat.domain.ChatRoom;
+import com.example.chatserver.chat.dto.ChatMessageDto;
+import com.example.chatserver.chat.repository.ChatParticipantRepository;
+import com.example.chatserver.chat.repository.ChatRoomRepository;
+import com.example.chatserver.member.domain.Member;
+import com.example.chatserver.member.repository.MemberRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// ChatService.saveMessage (동기 저장 경로) : room 조회 + insert + 커밋 후 안읽은 메세지 카운터 갱신
+// DB는 H2(MySQL 모드), redis는 jedis-mock 이므로 네트워크 왕복이 없는 상태의 처리 비용
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SaveMessageBenchmark {
+
+    private InMemoryChatServer server;
+    private ChatService chatService;
+    private Long roomId;
+    private Long senderId;
+    private ChatMessageDto chatMessageDto;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = InMemoryChatServer.start();
+        chatService = server.getBean(ChatService.class);
+
+        MemberRepository memberRepository = server.getBean(MemberRepository.class);
+        ChatRoom chatRoom = server.getBean(ChatRoomRepository.class).save(ChatRoom.builder()
+                .name("bench").isGroupChat("Y").build());
+        ChatParticipantRepository chatParticipantRepository = server.getBean(ChatParticipantRepository.class);
+        // 보낸이 + 카운터를 갱신할 참여자
+        for(int i = 0; i < 10; i++) {
+            Member member = memberRepository.save(Member.builder()
+                    .name("bench" + i).email("bench" + i + "@example.com").password("password").build());
+            chatParticipantRepository.save(ChatParticipant.builder().chatRoom(chatRoom).member(member).build());
+            if(i == 0) senderId = member.getId();
+        }
+        roomId = chatRoom.getId();
+        chatMessageDto = ChatMessageDto.builder().roomId(roomId).message("안녕하세요").build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Benchmark
+    public ChatMessage saveMessage() {
+        return chatService.saveMessage(roomId, senderId, chatMessageDto);
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.example.chatserver.common.auth;
+
+import com.example.chatserver.InMemoryChatServer;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// JWT 검증 : 매번 서명 검증(StompHandler CONNECT) vs 검증된 claims 캐시(JwtAuthFilter)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JwtBenchmark {
+
+    private JwtTokenProvider jwtTokenProvider;
+    private JwtClaimsCache jwtClaimsCache;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtTokenProvider = new JwtTokenProvider(InMemoryChatServer.JWT_SECRET, 60);
+        jwtClaimsCache = new JwtClaimsCache(jwtTokenProvider, 10000, 3600);
+        token = jwtTokenProvider.createToken("member@example.com", "USER");
+        jwtClaimsCache.verify(token);
+    }
+
+    @Benchmark
+    public Claims parse() {
+        return jwtTokenProvider.parseClaims(token);
+    }
+
+    @Benchmark
+    public Claims cachedVerify() {
+        return jwtClaimsCache.verify(token);
+    }
+
+}
@@ -0,0 +1,95 @@
+#!/usr/bin/env bash
+# 서버 설정별 부하 테스트 비교
+# 설정마다 메모리 서버(./gradlew localServer)를 새로 띄워 같은 부하(./gradlew loadtest)를 주고, summary CSV를 markdown 표로 정리
+#
+# 사용 : src/loadtest/compare.sh <이름> <label>=<서버 인자> [<label>=<서버 인자> ...] -- <loadtest 인자>
+#
+# platform thread vs virtual thread (sender 수천 명, 처리량/p99) :
+#   src/loadtest/compare.sh thread-modes \
+#     "platform=--spring.threads.virtual.enabled=false" \
+#     "virtual=--spring.threads.virtual.enabled=true" \
+#     -- --clients=4000 --rooms=400 --zipf=1.1 --rate=2 --duration=60 --endpoint=ws
+#   room 안의 순서(out_of_order)까지 비교하려면 두 설정 모두에 --chat.inbound.room-lanes.enabled=true 를 추가
+#   (setPreserveReceiveOrder는 세션 단위 순서만 보장한다)
+#
+# permessage-deflate on/off (/ws, 채팅 메세지 크기별 전송 바이트/CPU) :
+#   src/loadtest/compare.sh compression \
+#     "deflate=--chat.websocket.compression.enabled=true" \
+#     "plain=--chat.websocket.compression.enabled=false" \
+#     -- --clients=2000 --rooms=200 --rate=2 --duration=60 --endpoint=ws --deflate=true --wire-bytes=true --message-size=64
+#   client는 항상 압축을 제안하고, 서버 설정으로 협상 여부가 갈린다 (--message-size=16, 256 등으로 반복)
+#
+# 서버 CPU 시간은 --server-pid로 자동 측정 (같은 머신)
+#
+# 결과 : build/loadtest/<이름>.md (표), <이름>.csv, 설정별 출력(<이름>-<label>.txt), histogram, 서버 로그
+set -euo pipefail
+
+cd "$(dirname "$0")/../.."
+
+if [ $# -lt 2 ]; then
+  sed -n '2,24p' "$0"
+  exit 1
+fi
+
+name=$1
+shift
+variants=()
+while [ $# -gt 0 ] && [ "$1" != "--" ]; do
+  variants+=("$1")
+  shift
+done
+[ $# -gt 0 ] && shift
+loadtest_args="$*"
+
+out=build/loadtest
+mkdir -p "$out"
+rm -f "$out/$name.csv"
+
+for variant in "${variants[@]}"; do
+  label=${variant%%=*}
+  server_args=${variant#*=}
+  log="$out/$name-$label-server.log"
+
+  sh gradlew -q localServer -Pserver.args="$server_args" > "$log" 2>&1 &
+  gradle_pid=$!
+
+  # InMemoryChatServer가 시작 로그에 남기는 pid로 종료한다 (gradle 프로세스만 종료하면 서버 JVM이 남을 수 있다)
+  pid=""
+  for _ in $(seq 1 180); do
+    pid=$(sed -n 's/.*in-memory chat server started on port [0-9]* pid=\([0-9]*\).*/\1/p' "$log")
+    [ -n "$pid" ] && break
+    if ! kill -0 "$gradle_pid" 2>/dev/null; then
+      echo "server($label) 실행 실패 : $log"
+      exit 1
+    fi
+    sleep 1
+  done
+  if [ -z "$pid" ]; then
+    echo "server($label) 시작 대기 시간 초과 : $log"
+    kill "$gradle_pid"
+    exit 1
+  fi
+
+  echo "== $name / $label ($server_args)"
+  sh gradlew -q loadtest -Ploadtest.args="$loadtest_args --label=$label --summary=$out/$name.csv --report=$out/$name-$label.hgrm --server-pid=$pid" \
+    | tee "$out/$name-$label.txt"
+
+  kill "$pid"
+  wait "$gradle_pid" || true
+done
+
+{
+  echo "# $name"
+  echo
+  echo "loadtest : \`$loadtest_args\`"
+  echo
+  for variant in "${variants[@]}"; do
+    echo "- ${variant%%=*} : \`${variant#*=}\`"
+  done
+  echo
+  awk -F, 'NR == 1 { line = "|"; sep = "|"; for(i = 1; i <= NF; i++) { line = line " " $i " |"; sep = sep "---|" } print line; print sep; next }
+           { line = "|"; for(i = 1; i <= NF; i++) line = line " " $i " |"; print line }' "$out/$name.csv"
+} > "$out/$name.md"
+
+echo
+cat "$out/$name.md"
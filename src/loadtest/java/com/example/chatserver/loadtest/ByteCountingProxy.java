@@ -0,0 +1,87 @@
+package com.example.chatserver.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+// websocket 연결의 실제 전송 바이트(압축, websocket framing 포함)를 세는 TCP 중계
+// client -> localhost:{port} -> 서버, 방향별 바이트 수를 센다 (HTTP 업그레이드 요청/응답 포함)
+final class ByteCountingProxy implements AutoCloseable {
+
+    private final String targetHost;
+    private final int targetPort;
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    final LongAdder bytesToServer = new LongAdder();
+    final LongAdder bytesToClient = new LongAdder();
+
+    ByteCountingProxy(String targetHost, int targetPort) throws IOException {
+        this.targetHost = targetHost;
+        this.targetPort = targetPort;
+        this.serverSocket = new ServerSocket(0, 1024, InetAddress.getLoopbackAddress());
+        executor.execute(this::acceptLoop);
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while(!serverSocket.isClosed()) {
+            Socket client;
+            try {
+                client = serverSocket.accept();
+            } catch (IOException e) {
+                return;
+            }
+            executor.execute(() -> relay(client));
+        }
+    }
+
+    private void relay(Socket client) {
+        try(client; Socket server = new Socket(targetHost, targetPort)) {
+            client.setTcpNoDelay(true);
+            server.setTcpNoDelay(true);
+            executor.execute(() -> copy(client, server, bytesToServer));
+            copy(server, client, bytesToClient);
+        } catch (IOException e) {
+            // 연결 종료
+        }
+    }
+
+    // 한쪽이 끊기면 반대쪽도 닫는다
+    private static void copy(Socket from, Socket to, LongAdder counter) {
+        byte[] buffer = new byte[16 * 1024];
+        try {
+            InputStream in = from.getInputStream();
+            OutputStream out = to.getOutputStream();
+            int read;
+            while((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+                out.flush();
+                counter.add(read);
+            }
+        } catch (IOException e) {
+            // 연결 종료
+        } finally {
+            try {
+                to.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.example.chatserver.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// 부하 테스트 준비용 REST 호출 (회원 생성, 로그인, 그룹 채팅방 생성/참여)
+final class ChatApiClient {
+
+    private final String baseUrl;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    ChatApiClient(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    // 이미 있는 email이면 실패하므로 결과는 보지 않는다 (이전 실행에서 만든 회원 재사용)
+    void createMember(String name, String email, String password) throws IOException, InterruptedException {
+        send(post("/member/create", Map.of("name", name, "email", email, "password", password), null));
+    }
+
+    String login(String email, String password) throws IOException, InterruptedException {
+        HttpResponse<String> response = send(post("/member/doLogin", Map.of("email", email, "password", password), null));
+        if(response.statusCode() != 200) {
+            throw new IllegalStateException("로그인 실패 " + email + " : " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body()).get("token").asText();
+    }
+
+    void createGroupRoom(String token, String roomName) throws IOException, InterruptedException {
+        HttpResponse<String> response = send(post("/chat/room/group/create?roomName=" + URLEncoder.encode(roomName, StandardCharsets.UTF_8), null, token));
+        if(response.statusCode() != 200) {
+            throw new IllegalStateException("채팅방 생성 실패 " + roomName + " : " + response.statusCode());
+        }
+    }
+
+    // roomName -> roomId
+    Map<String, Long> groupRooms(String token) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/chat/room/group/list"))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        HttpResponse<String> response = send(request);
+        if(response.statusCode() != 200) {
+            throw new IllegalStateException("채팅방 목록 조회 실패 : " + response.statusCode());
+        }
+        Map<String, Long> rooms = new HashMap<>();
+        for(JsonNode room : objectMapper.readTree(response.body())) {
+            rooms.put(room.get("roomName").asText(), room.get("roomId").asLong());
+        }
+        return rooms;
+    }
+
+    boolean joinGroupRoom(String token, long roomId) throws IOException, InterruptedException {
+        return send(post("/chat/room/group/" + roomId + "/join", null, token)).statusCode() == 200;
+    }
+
+    private HttpRequest post(String path, Object body, String token) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30));
+        if(body != null) {
+            builder.header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        } else {
+            builder.POST(HttpRequest.BodyPublishers.noBody());
+        }
+        if(token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+}
@@ -0,0 +1,236 @@
+package com.example.chatserver.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.client.WebSocketClient;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// STOMP 부하 테스트
+// 1. 회원 생성/로그인, 채팅방 생성, Zipf 분포로 client를 room에 배정해 참여 (REST)
+// 2. client마다 STOMP 연결 후 /topic/{roomId} 구독
+// 3. client마다 초당 rate건 /publish/{roomId} 전송 (warm-up 이후 duration 동안 지연 측정)
+// 4. 전송 종료 후 drain 동안 남은 수신을 기다린 뒤 처리량, 지연 분포, 유실/순서 바뀜을 출력하고 summary CSV에 한 줄 추가
+//    --wire-bytes=true : websocket 실제 전송 바이트, --server-pid : 서버 CPU 시간 (압축 on/off 비교 등)
+//
+// 실행 : ./gradlew localServer  (다른 터미널) ./gradlew loadtest -Ploadtest.args="--clients=2000 --rooms=200 --zipf=1.1 --rate=2"
+// 서버 설정별 비교 : src/loadtest/compare.sh (설정마다 서버를 다시 띄워 실행하고 summary를 표로 정리)
+public final class ChatLoadTest {
+
+    private static final String PASSWORD = "loadtest-password";
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        ObjectMapper objectMapper = new ObjectMapper();
+        DeliveryStats stats = new DeliveryStats();
+        ChatApiClient api = new ChatApiClient(options.url());
+        ExecutorService setupExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        Semaphore setupPermits = new Semaphore(options.setupConcurrency());
+
+        // 1. 채팅방 생성 (실행마다 새 room)
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        api.createMember("loadtest-admin", "loadtest-admin@loadtest.local", PASSWORD);
+        String adminToken = api.login("loadtest-admin@loadtest.local", PASSWORD);
+        List<Long> roomIds = new ArrayList<>();
+        for(int i = 0; i < options.rooms(); i++) {
+            api.createGroupRoom(adminToken, "loadtest-" + runId + "-" + i);
+        }
+        Map<String, Long> rooms = api.groupRooms(adminToken);
+        for(int i = 0; i < options.rooms(); i++) {
+            roomIds.add(rooms.get("loadtest-" + runId + "-" + i));
+        }
+
+        // client -> room (Zipf), 회원 생성/로그인/참여
+        ZipfDistribution zipf = new ZipfDistribution(options.rooms(), options.zipfExponent(), options.seed());
+        int[] roomOfClient = new int[options.clients()];
+        int[] roomSizes = new int[options.rooms()];
+        for(int i = 0; i < options.clients(); i++) {
+            roomOfClient[i] = zipf.sample();
+            roomSizes[roomOfClient[i]]++;
+        }
+        String[] tokens = new String[options.clients()];
+        List<CompletableFuture<Void>> setups = new ArrayList<>();
+        for(int i = 0; i < options.clients(); i++) {
+            int client = i;
+            setups.add(CompletableFuture.runAsync(() -> {
+                String email = "loadtest-" + client + "@loadtest.local";
+                try {
+                    setupPermits.acquire();
+                    try {
+                        api.createMember("loadtest-" + client, email, PASSWORD);
+                        tokens[client] = api.login(email, PASSWORD);
+                        if(!api.joinGroupRoom(tokens[client], roomIds.get(roomOfClient[client]))) {
+                            throw new IllegalStateException("채팅방 참여 실패 " + email);
+                        }
+                    } finally {
+                        setupPermits.release();
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException("client 준비 실패 " + email, e);
+                }
+            }, setupExecutor));
+        }
+        CompletableFuture.allOf(setups.toArray(CompletableFuture[]::new)).join();
+        System.out.printf("setup : %d clients, %d rooms, largest room %d members%n",
+                options.clients(), options.rooms(), max(roomSizes));
+
+        // 2. STOMP 연결 + 구독
+        WebSocketClient webSocketClient = new StandardWebSocketClient();
+        if(options.endpoint().equals("sockjs")) {
+            webSocketClient = new SockJsClient(List.of(new WebSocketTransport(webSocketClient)));
+        }
+        ByteCountingProxy proxy = null;
+        String stompUrl = options.stompUrl();
+        if(options.wireBytes()) {
+            URI target = URI.create(options.url());
+            proxy = new ByteCountingProxy(target.getHost(), target.getPort() > 0 ? target.getPort() : 80);
+            stompUrl = options.stompUrl("http://127.0.0.1:" + proxy.getPort());
+        }
+        ResourceUsage usage = new ResourceUsage(options.serverPid(), proxy);
+        WebSocketStompClient stompClient = new WebSocketStompClient(webSocketClient);
+        stompClient.setMessageConverter(new ByteArrayMessageConverter());
+        ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.initialize();
+        stompClient.setTaskScheduler(taskScheduler);
+
+        AtomicInteger[] roomSubscribers = new AtomicInteger[options.rooms()];
+        for(int i = 0; i < options.rooms(); i++) {
+            roomSubscribers[i] = new AtomicInteger();
+        }
+        List<LoadTestClient> clients = new ArrayList<>();
+        List<CompletableFuture<?>> connections = new ArrayList<>();
+        for(int i = 0; i < options.clients(); i++) {
+            LoadTestClient client = new LoadTestClient(i, roomIds.get(roomOfClient[i]), roomSubscribers[roomOfClient[i]], stats, objectMapper, options.messageSize());
+            clients.add(client);
+            setupPermits.acquire();
+            connections.add(client.connect(stompClient, stompUrl, tokens[i], options.deflate())
+                    .whenComplete((session, e) -> setupPermits.release()));
+        }
+        CompletableFuture.allOf(connections.toArray(CompletableFuture[]::new)).join();
+        // SUBSCRIBE가 서버에서 처리될 시간
+        Thread.sleep(1000);
+        System.out.printf("connected : %d sessions (%s)%n", clients.size(), stompUrl);
+
+        // 3. 전송 : client마다 고정 주기, 시작 시점은 주기 안에서 무작위
+        long periodMicros = (long) (1_000_000 / options.ratePerClient());
+        Random random = new Random(options.seed());
+        ScheduledExecutorService senders = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
+        for(LoadTestClient client : clients) {
+            senders.scheduleAtFixedRate(client::send, (long) (random.nextDouble() * periodMicros), periodMicros, TimeUnit.MICROSECONDS);
+        }
+
+        TimeUnit.SECONDS.sleep(options.warmupSeconds());
+        stats.startMeasuring();
+        usage.start();
+        TimeUnit.SECONDS.sleep(options.durationSeconds());
+        senders.shutdownNow();
+        senders.awaitTermination(10, TimeUnit.SECONDS);
+
+        // 4. 남은 수신 대기 후 결과
+        TimeUnit.SECONDS.sleep(options.drainSeconds());
+        stats.stopMeasuring();
+        usage.stop();
+        clients.forEach(LoadTestClient::disconnect);
+        stompClient.stop();
+        taskScheduler.shutdown();
+        setupExecutor.shutdown();
+        if(proxy != null) {
+            proxy.close();
+        }
+
+        report(options, stats, usage);
+    }
+
+    private static void report(LoadTestOptions options, DeliveryStats stats, ResourceUsage usage) throws Exception {
+        Histogram histogram = stats.histogram();
+        long expected = stats.expected.sum();
+        long delivered = stats.delivered.sum();
+        long lost = Math.max(0, expected - delivered);
+
+        System.out.println("== chat load test ==");
+        System.out.printf("clients=%d rooms=%d zipf=%.2f rate=%.2f msg/s/client duration=%ds endpoint=%s%n",
+                options.clients(), options.rooms(), options.zipfExponent(), options.ratePerClient(), options.durationSeconds(), options.endpoint());
+        System.out.printf("sent=%d send-failed=%d expected=%d delivered=%d lost=%d (%.4f%%) out-of-order/duplicate=%d%n",
+                stats.sent.sum(), stats.sendFailed.sum(), expected, delivered, lost,
+                expected == 0 ? 0.0 : lost * 100.0 / expected, stats.outOfOrder.sum());
+        // 측정 구간의 전송 수 / duration, 같은 구간(drain 포함)의 수신 수 / duration
+        double sentPerSecond = (double) stats.measuredSent() / options.durationSeconds();
+        double deliveredPerSecond = (double) stats.measuredDelivered() / options.durationSeconds();
+        System.out.printf("throughput : sent=%.1f msg/s delivered=%.1f msg/s%n", sentPerSecond, deliveredPerSecond);
+        System.out.printf("delivery latency (ms) : p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f (samples=%d)%n",
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()), histogram.getTotalCount());
+        // 측정 구간(drain 포함)의 websocket 전송 바이트, CPU 시간 (측정하지 않은 값은 -1)
+        long measuredDelivered = Math.max(1, stats.measuredDelivered());
+        double bytesPerDelivered = usage.bytesToClient() < 0 ? -1 : (double) usage.bytesToClient() / measuredDelivered;
+        double serverCpuPer1k = usage.serverCpuMillis() < 0 ? -1 : usage.serverCpuMillis() * 1000.0 / measuredDelivered;
+        System.out.printf("wire bytes : to-client=%d (%.1f B/delivered) to-server=%d%n",
+                usage.bytesToClient(), bytesPerDelivered, usage.bytesToServer());
+        System.out.printf("cpu (ms) : server=%d (%.2f per 1k delivered) client=%d%n",
+                usage.serverCpuMillis(), serverCpuPer1k, usage.clientCpuMillis());
+
+        // 비교용 요약 한 줄 (파일이 없으면 header 먼저)
+        File summaryFile = new File(options.summary());
+        if(summaryFile.getParentFile() != null) {
+            summaryFile.getParentFile().mkdirs();
+        }
+        boolean header = !summaryFile.exists();
+        try(PrintStream out = new PrintStream(new FileOutputStream(summaryFile, true))) {
+            if(header) {
+                out.println("label,clients,rooms,rate,sent_per_s,delivered_per_s,lost,out_of_order,p50_ms,p99_ms,p999_ms,max_ms,"
+                        + "wire_bytes_to_client,wire_bytes_per_delivered,wire_bytes_to_server,server_cpu_ms,server_cpu_ms_per_1k,client_cpu_ms");
+            }
+            out.printf(Locale.ROOT, "%s,%d,%d,%.2f,%.1f,%.1f,%d,%d,%.2f,%.2f,%.2f,%.2f,%d,%.1f,%d,%d,%.2f,%d%n",
+                    options.label(), options.clients(), options.rooms(), options.ratePerClient(),
+                    sentPerSecond, deliveredPerSecond, lost, stats.outOfOrder.sum(),
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()),
+                    usage.bytesToClient(), bytesPerDelivered, usage.bytesToServer(),
+                    usage.serverCpuMillis(), serverCpuPer1k, usage.clientCpuMillis());
+        }
+        System.out.println("summary : " + summaryFile.getAbsolutePath());
+
+        // HdrHistogram 분포 (ms 단위, HistogramLogAnalyzer 등으로 비교)
+        File reportFile = new File(options.report());
+        if(reportFile.getParentFile() != null) {
+            reportFile.getParentFile().mkdirs();
+        }
+        try(PrintStream out = new PrintStream(reportFile)) {
+            histogram.outputPercentileDistribution(out, 1_000_000.0);
+        }
+        System.out.println("histogram : " + reportFile.getAbsolutePath());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static int max(int[] values) {
+        int max = 0;
+        for(int value : values) max = Math.max(max, value);
+        return max;
+    }
+
+}
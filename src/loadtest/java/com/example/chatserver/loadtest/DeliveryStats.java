@@ -0,0 +1,67 @@
+package com.example.chatserver.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// 전송/수신 집계 : 전달 지연(HdrHistogram), 기대 수신 수 대비 실제 수신 수
+// 지연은 같은 JVM의 System.nanoTime() 차이이므로 client 간 시계 차이가 없다
+final class DeliveryStats {
+
+    // 1µs ~ 60s, 유효숫자 3자리
+    private final Recorder recorder = new Recorder(TimeUnit.SECONDS.toNanos(60), 3);
+    private final Histogram total = new Histogram(TimeUnit.SECONDS.toNanos(60), 3);
+
+    final LongAdder sent = new LongAdder();
+    final LongAdder sendFailed = new LongAdder();
+    // 보낸 시점의 room 구독자 수 합 (보낸 사람 자신 포함)
+    final LongAdder expected = new LongAdder();
+    final LongAdder delivered = new LongAdder();
+    // 같은 보낸이의 seq가 이전보다 작거나 같은 수신 (중복 또는 순서 바뀜)
+    final LongAdder outOfOrder = new LongAdder();
+
+    private volatile boolean measuring;
+
+    // 측정 구간 (warm-up 이후 ~ drain 끝) 의 전송/수신 수
+    private long sentAtStart;
+    private long deliveredAtStart;
+    private long measuredSent;
+    private long measuredDelivered;
+
+    void recordDelivery(long latencyNanos) {
+        delivered.increment();
+        if(measuring) {
+            recorder.recordValue(Math.min(Math.max(latencyNanos, 1000), TimeUnit.SECONDS.toNanos(60)));
+        }
+    }
+
+    // warm-up이 끝나면 그 동안의 지연 기록은 버리고 측정 시작
+    void startMeasuring() {
+        recorder.reset();
+        sentAtStart = sent.sum();
+        deliveredAtStart = delivered.sum();
+        measuring = true;
+    }
+
+    void stopMeasuring() {
+        measuring = false;
+        measuredSent = sent.sum() - sentAtStart;
+        measuredDelivered = delivered.sum() - deliveredAtStart;
+        total.add(recorder.getIntervalHistogram());
+    }
+
+    long measuredSent() {
+        return measuredSent;
+    }
+
+    long measuredDelivered() {
+        return measuredDelivered;
+    }
+
+    Histogram histogram() {
+        return total;
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.example.chatserver.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 가상 사용자 1명 : STOMP 연결 1개, /topic/{roomId} 구독, /publish/{roomId} 전송
+// 메세지 본문 : lt:{보낸이 index}:{seq}:{보낸 시각 nanoTime}:{padding}
+final class LoadTestClient {
+
+    private static final String MARKER = "lt:";
+
+    private final int index;
+    private final long roomId;
+    private final AtomicInteger roomSubscribers;
+    private final DeliveryStats stats;
+    private final ObjectMapper objectMapper;
+    private final String padding;
+
+    private final AtomicInteger seq = new AtomicInteger();
+    // 보낸이 index -> 마지막으로 받은 seq
+    private final Map<Integer, Integer> lastSeqBySender = new ConcurrentHashMap<>();
+
+    private volatile StompSession session;
+
+    LoadTestClient(int index, long roomId, AtomicInteger roomSubscribers, DeliveryStats stats, ObjectMapper objectMapper, int messageSize) {
+        this.index = index;
+        this.roomId = roomId;
+        this.roomSubscribers = roomSubscribers;
+        this.stats = stats;
+        this.objectMapper = objectMapper;
+        this.padding = "x".repeat(Math.max(0, messageSize));
+    }
+
+    // deflate : 업그레이드 요청에 permessage-deflate 제안
+    CompletableFuture<StompSession> connect(WebSocketStompClient stompClient, String url, String token, boolean deflate) {
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("Authorization", "Bearer " + token);
+        WebSocketHttpHeaders handshakeHeaders = null;
+        if(deflate) {
+            handshakeHeaders = new WebSocketHttpHeaders();
+            handshakeHeaders.setSecWebSocketExtensions(List.of(new WebSocketExtension("permessage-deflate")));
+        }
+        return stompClient.connectAsync(url, handshakeHeaders, connectHeaders, new StompSessionHandlerAdapter() {
+                })
+                .thenApply(connected -> {
+                    connected.subscribe("/topic/" + roomId, new StompFrameHandler() {
+                        @Override
+                        public Type getPayloadType(StompHeaders headers) {
+                            return byte[].class;
+                        }
+
+                        @Override
+                        public void handleFrame(StompHeaders headers, Object payload) {
+                            onFrame((byte[]) payload);
+                        }
+                    });
+                    roomSubscribers.incrementAndGet();
+                    session = connected;
+                    return connected;
+                });
+    }
+
+    void send() {
+        StompSession current = session;
+        if(current == null || !current.isConnected()) {
+            stats.sendFailed.increment();
+            return;
+        }
+        String message = MARKER + index + ":" + seq.incrementAndGet() + ":" + System.nanoTime() + ":" + padding;
+        StompHeaders headers = new StompHeaders();
+        headers.setDestination("/publish/" + roomId);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(Map.of("message", message));
+            // 보낸 시점의 구독자 수만큼 수신을 기대
+            stats.expected.add(roomSubscribers.get());
+            current.send(headers, body);
+            stats.sent.increment();
+        } catch (IOException | RuntimeException e) {
+            stats.sendFailed.increment();
+        }
+    }
+
+    void disconnect() {
+        StompSession current = session;
+        if(current != null && current.isConnected()) {
+            current.disconnect();
+        }
+    }
+
+    // 단건(JSON 객체) 또는 묶음 전송(batch-size 헤더, JSON 배열)
+    private void onFrame(byte[] payload) {
+        long now = System.nanoTime();
+        try {
+            JsonNode node = objectMapper.readTree(payload);
+            if(node.isArray()) {
+                for(JsonNode element : node) {
+                    onMessage(element, now);
+                }
+            } else {
+                onMessage(node, now);
+            }
+        } catch (IOException e) {
+            // 부하 테스트 메세지가 아닌 frame은 무시
+        }
+    }
+
+    private void onMessage(JsonNode node, long now) {
+        JsonNode message = node.get("message");
+        if(message == null) return;
+        String text = message.asText();
+        if(!text.startsWith(MARKER)) return;
+
+        String[] parts = text.split(":", 5);
+        int sender = Integer.parseInt(parts[1]);
+        int messageSeq = Integer.parseInt(parts[2]);
+        long sentNanos = Long.parseLong(parts[3]);
+
+        Integer previous = lastSeqBySender.put(sender, messageSeq);
+        if(previous != null && previous >= messageSeq) {
+            stats.outOfOrder.increment();
+        }
+        stats.recordDelivery(now - sentNanos);
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.example.chatserver.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// 부하 테스트 설정 (--name=value)
+record LoadTestOptions(String url,
+                       String endpoint,
+                       int clients,
+                       int rooms,
+                       double zipfExponent,
+                       double ratePerClient,
+                       int durationSeconds,
+                       int warmupSeconds,
+                       int drainSeconds,
+                       int messageSize,
+                       int setupConcurrency,
+                       long seed,
+                       String report,
+                       String label,
+                       String summary,
+                       boolean deflate,
+                       boolean wireBytes,
+                       long serverPid) {
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for(String arg : args) {
+            int eq = arg.indexOf('=');
+            if(!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("--name=value 형식이 아닙니다 : " + arg);
+            }
+            values.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+
+        LoadTestOptions options = new LoadTestOptions(
+                values.getOrDefault("url", "http://localhost:8080"),
+                // sockjs : /connect (SockJS), ws : /ws (native websocket)
+                values.getOrDefault("endpoint", "sockjs"),
+                Integer.parseInt(values.getOrDefault("clients", "1000")),
+                Integer.parseInt(values.getOrDefault("rooms", "100")),
+                // 0이면 room 크기 균등, 클수록 앞쪽 room에 참여자가 몰린다
+                Double.parseDouble(values.getOrDefault("zipf", "1.0")),
+                // client당 초당 전송 수
+                Double.parseDouble(values.getOrDefault("rate", "1.0")),
+                Integer.parseInt(values.getOrDefault("duration", "60")),
+                Integer.parseInt(values.getOrDefault("warmup", "10")),
+                Integer.parseInt(values.getOrDefault("drain", "5")),
+                Integer.parseInt(values.getOrDefault("message-size", "64")),
+                Integer.parseInt(values.getOrDefault("setup-concurrency", "64")),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                values.getOrDefault("report", "build/loadtest/latency.hgrm"),
+                // 비교 실행 시 결과 행 이름 (예 : platform, virtual)
+                values.getOrDefault("label", "run"),
+                // 결과 한 줄을 덧붙일 CSV (비교 스크립트가 모아서 표로 만든다)
+                values.getOrDefault("summary", "build/loadtest/summary.csv"),
+                // ws 연결 시 permessage-deflate 제안 (서버 설정 chat.websocket.compression.enabled에 따라 협상)
+                Boolean.parseBoolean(values.getOrDefault("deflate", "false")),
+                // STOMP 연결을 byte 수를 세는 TCP 중계로 연결해 실제 전송 바이트 측정
+                Boolean.parseBoolean(values.getOrDefault("wire-bytes", "false")),
+                // 같은 머신의 서버 pid : 측정 구간의 서버 CPU 시간 (0이면 측정 안 함)
+                Long.parseLong(values.getOrDefault("server-pid", "0")));
+
+        if(!options.endpoint.equals("sockjs") && !options.endpoint.equals("ws")) {
+            throw new IllegalArgumentException("endpoint는 sockjs 또는 ws 입니다 : " + options.endpoint);
+        }
+        return options;
+    }
+
+    String stompUrl() {
+        return stompUrl(url);
+    }
+
+    // baseUrl : http://host:port (중계를 거칠 때는 중계 주소)
+    String stompUrl(String baseUrl) {
+        String base = baseUrl.replaceFirst("^http", "ws");
+        return endpoint.equals("ws") ? base + "/ws" : baseUrl + "/connect";
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.example.chatserver.loadtest;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Optional;
+
+// 측정 구간의 CPU 시간과 websocket 전송 바이트
+// - 서버 CPU : --server-pid 로 받은 프로세스의 누적 CPU 시간 (같은 머신에서 실행한 서버만)
+// - client CPU : 부하 테스트 JVM 자신의 누적 CPU 시간 (압축 해제 비용 등)
+// - 전송 바이트 : ByteCountingProxy를 거친 연결만 (--wire-bytes=true)
+final class ResourceUsage {
+
+    private final long serverPid;
+    private final ByteCountingProxy proxy;
+
+    private Snapshot start;
+    private Snapshot end;
+
+    ResourceUsage(long serverPid, ByteCountingProxy proxy) {
+        this.serverPid = serverPid;
+        this.proxy = proxy;
+    }
+
+    void start() {
+        start = snapshot();
+    }
+
+    void stop() {
+        end = snapshot();
+    }
+
+    // 측정하지 않은 값은 -1
+    long serverCpuMillis() {
+        return start.serverCpuNanos < 0 || end.serverCpuNanos < 0 ? -1 : (end.serverCpuNanos - start.serverCpuNanos) / 1_000_000;
+    }
+
+    long clientCpuMillis() {
+        return start.clientCpuNanos < 0 ? -1 : (end.clientCpuNanos - start.clientCpuNanos) / 1_000_000;
+    }
+
+    long bytesToClient() {
+        return proxy == null ? -1 : end.bytesToClient - start.bytesToClient;
+    }
+
+    long bytesToServer() {
+        return proxy == null ? -1 : end.bytesToServer - start.bytesToServer;
+    }
+
+    private Snapshot snapshot() {
+        long serverCpu = -1;
+        if(serverPid > 0) {
+            serverCpu = ProcessHandle.of(serverPid)
+                    .flatMap(process -> process.info().totalCpuDuration())
+                    .map(Duration::toNanos)
+                    .orElse(-1L);
+        }
+        long clientCpu = Optional.of(ManagementFactory.getOperatingSystemMXBean())
+                .filter(os -> os instanceof com.sun.management.OperatingSystemMXBean)
+                .map(os -> ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime())
+                .orElse(-1L);
+        return new Snapshot(serverCpu, clientCpu,
+                proxy == null ? 0 : proxy.bytesToClient.sum(),
+                proxy == null ? 0 : proxy.bytesToServer.sum());
+    }
+
+    private record Snapshot(long serverCpuNanos, long clientCpuNanos, long bytesToClient, long bytesToServer) {
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.example.chatserver.loadtest;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// 0 ~ n-1 중 k번째가 뽑힐 확률 ∝ 1 / (k+1)^exponent (앞쪽 몇 개 room에 참여자가 몰리는 분포)
+final class ZipfDistribution {
+
+    private final double[] cumulative;
+    private final Random random;
+
+    ZipfDistribution(int n, double exponent, long seed) {
+        this.cumulative = new double[n];
+        this.random = new Random(seed);
+        double sum = 0;
+        for(int k = 0; k < n; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+        for(int k = 0; k < n; k++) {
+            cumulative[k] /= sum;
+        }
+    }
+
+    int sample() {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        int k = index >= 0 ? index : -index - 1;
+        return Math.min(k, cumulative.length - 1);
+    }
+
+}
@@ -0,0 +1,222 @@
+package com.example.chatserver.chat.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// STOMP inbound 채널용 executor : /publish/{roomId} 로 들어온 SEND 프레임을 room별로 순서대로 처리
+// - SEND 외 프레임(CONNECT, SUBSCRIBE 등)은 delegate executor로 전달
+// - platform thread 모드 : roomId % lanes 번째 lane(스레드 1개)에서 처리
+//   lane 큐가 가득 차면 offer-timeout 동안 기다린 뒤 거부 (받는 쪽 소켓 읽기에 backpressure)
+// - virtual thread 모드(roomExecutor 지정) : room마다 대기 큐를 두고, 처리 중인 room만 virtual thread 1개가 큐를 비운다
+//   한 room의 JDBC 저장이 block 되어도 같은 lane의 다른 room이 기다리지 않는다
+//   room 큐가 가득 차면 기다리지 않고 바로 거부 (소켓 읽기 스레드를 붙잡지 않는다)
+//   lane은 통계(대기/처리/거부 건수)를 묶는 단위로만 사용
+public class RoomOrderedExecutor implements Executor, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomOrderedExecutor.class);
+
+    private final String roomDestinationPrefix;
+    private final Executor delegate;
+    private final long offerTimeoutMs;
+    private final int queueDepth;
+    private final Lane[] lanes;
+
+    // virtual thread 모드에서만 사용 (platform thread 모드면 null)
+    private final Executor roomExecutor;
+    private final Map<Long, RoomQueue> roomQueues = new ConcurrentHashMap<>();
+
+    public RoomOrderedExecutor(String roomDestinationPrefix, Executor delegate, int laneCount, int queueDepth, long offerTimeoutMs) {
+        this(roomDestinationPrefix, delegate, null, laneCount, queueDepth, offerTimeoutMs);
+    }
+
+    public RoomOrderedExecutor(String roomDestinationPrefix, Executor delegate, Executor roomExecutor, int laneCount, int queueDepth, long offerTimeoutMs) {
+        this.roomDestinationPrefix = roomDestinationPrefix;
+        this.delegate = delegate;
+        this.roomExecutor = roomExecutor;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.queueDepth = queueDepth;
+        this.lanes = new Lane[laneCount];
+        for(int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(i, queueDepth, roomExecutor == null);
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        Long roomId = task instanceof MessageHandlingRunnable runnable ? roomIdOf(runnable.getMessage()) : null;
+        if(roomId == null) {
+            delegate.execute(task);
+            return;
+        }
+
+        Lane lane = lanes[(int) Math.floorMod(roomId, (long) lanes.length)];
+        if(roomExecutor != null) {
+            enqueueRoom(roomId, lane, task);
+            return;
+        }
+        try {
+            if(!lane.queue.offer(task, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                lane.rejected.incrementAndGet();
+                throw new RejectedExecutionException("room lane " + lane.index + " 큐가 가득 찼습니다. roomId=" + roomId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("room lane 대기 중 interrupt", e);
+        }
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    public int getQueueSize(int lane) {
+        return roomExecutor != null ? lanes[lane].queued.get() : lanes[lane].queue.size();
+    }
+
+    public long getProcessedCount(int lane) {
+        return lanes[lane].processed.get();
+    }
+
+    public long getRejectedCount(int lane) {
+        return lanes[lane].rejected.get();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for(Lane lane : lanes) {
+            if(lane.thread != null) lane.thread.interrupt();
+        }
+        for(Lane lane : lanes) {
+            if(lane.thread != null) lane.thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        if(delegate instanceof DisposableBean disposable) {
+            disposable.destroy();
+        }
+    }
+
+    // room 큐의 추가/꺼내기는 map의 compute 안에서만 (I/O 없이 큐 조작만 하므로 bin lock을 짧게 잡는다)
+    // 큐가 비면 map에서 제거하므로 구독이 끝난 room이 남지 않는다
+    private void enqueueRoom(Long roomId, Lane lane, Runnable task) {
+        boolean[] accepted = new boolean[1];
+        boolean[] start = new boolean[1];
+        RoomQueue roomQueue = roomQueues.compute(roomId, (id, q) -> {
+            if(q == null) q = new RoomQueue();
+            if(q.tasks.size() >= queueDepth) return q;
+            q.tasks.add(task);
+            accepted[0] = true;
+            if(!q.running) {
+                q.running = true;
+                start[0] = true;
+            }
+            return q;
+        });
+        if(!accepted[0]) {
+            lane.rejected.incrementAndGet();
+            throw new RejectedExecutionException("room 큐가 가득 찼습니다. roomId=" + roomId);
+        }
+        lane.queued.incrementAndGet();
+        if(start[0]) {
+            roomExecutor.execute(() -> drainRoom(roomId, roomQueue, lane));
+        }
+    }
+
+    private void drainRoom(Long roomId, RoomQueue roomQueue, Lane lane) {
+        while(true) {
+            Runnable[] next = new Runnable[1];
+            roomQueues.compute(roomId, (id, q) -> {
+                next[0] = roomQueue.tasks.poll();
+                if(next[0] != null) return q;
+                roomQueue.running = false;
+                return null;
+            });
+            if(next[0] == null) return;
+            lane.queued.decrementAndGet();
+            lane.run(next[0]);
+        }
+    }
+
+    // SEND(/publish/{roomId}) 프레임이 아니면 null
+    private Long roomIdOf(Message<?> message) {
+        if(SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) return null;
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if(destination == null || !destination.startsWith(roomDestinationPrefix)) return null;
+
+        long roomId = 0;
+        int length = destination.length();
+        if(length == roomDestinationPrefix.length()) return null;
+        for(int i = roomDestinationPrefix.length(); i < length; i++) {
+            int digit = destination.charAt(i) - '0';
+            if(digit < 0 || digit > 9) return null;
+            roomId = roomId * 10 + digit;
+        }
+        return roomId;
+    }
+
+    // room별 대기 큐 : roomQueues.compute 안에서만 접근
+    private static final class RoomQueue {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private boolean running;
+    }
+
+    private static final class Lane implements Runnable {
+        private final int index;
+        private final BlockingQueue<Runnable> queue;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final Thread thread;
+
+        private Lane(int index, int queueDepth, boolean platformThread) {
+            this.index = index;
+            if(platformThread) {
+                this.queue = new ArrayBlockingQueue<>(queueDepth);
+                this.thread = new Thread(this, "stomp-room-lane-" + index);
+                this.thread.setDaemon(true);
+                this.thread.start();
+            } else {
+                this.queue = null;
+                this.thread = null;
+            }
+        }
+
+        @Override
+        public void run() {
+            while(!Thread.currentThread().isInterrupted()) {
+                Runnable task;
+                try {
+                    task = queue.take();
+                } catch (InterruptedException e) {
+                    break;
+                }
+                run(task);
+            }
+        }
+
+        private void run(Runnable task) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                // 하나의 메세지 처리 실패로 lane(room 큐)이 멈추지 않도록
+                log.error("room lane {} 메세지 처리 실패", index, e);
+            }
+            processed.incrementAndGet();
+        }
+    }
+
+}
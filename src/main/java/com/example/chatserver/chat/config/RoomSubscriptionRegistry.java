@@ -0,0 +1,130 @@
+package com.example.chatserver.chat.config;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.broker.AbstractSubscriptionRegistry;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// simple broker용 구독 registry : /topic/{roomId} 구독을 roomId(long) 기준으로 바로 찾는다
+// - DefaultSubscriptionRegistry의 pattern 매칭, destination 캐시 대신 roomId -> (sessionId -> subscriptionIds) 조회 1회
+// - room별 구독은 concurrent map(sessionId -> copy-on-write list)을 그 자리에서 고친다
+//   구독/해제 비용은 room 크기와 관계없이 세션 1개 분량, 전송 시에는 복사 없이 그대로 반환 (순회는 weakly consistent)
+// - 같은 room의 변경은 rooms.compute 안에서 처리하므로 마지막 구독 해제와 새 구독이 겹쳐도 room이 사라지지 않는다
+// - roomId는 ChatDeliveryService가 넣는 ROOM_ID_HEADER에서 꺼내므로 destination 문자열을 파싱하지 않는다
+// - /topic/{roomId}/read 등 그 외 destination은 destination 문자열 그대로 exact match (pattern 구독, selector 헤더는 지원하지 않음)
+public class RoomSubscriptionRegistry extends AbstractSubscriptionRegistry {
+
+    // 전송 메세지의 roomId 헤더 (Long)
+    public static final String ROOM_ID_HEADER = "chatRoomId";
+
+    private static final MultiValueMap<String, String> EMPTY = CollectionUtils.unmodifiableMultiValueMap(new LinkedMultiValueMap<>());
+
+    private final String roomDestinationPrefix;
+
+    // roomId -> 구독
+    private final Map<Long, Subscribers> rooms = new ConcurrentHashMap<>();
+
+    // 그 외 destination -> 구독
+    private final Map<String, Subscribers> destinations = new ConcurrentHashMap<>();
+
+    // sessionId -> (subscriptionId -> roomId(Long) 또는 destination(String))
+    private final Map<String, Map<String, Object>> sessions = new ConcurrentHashMap<>();
+
+    public RoomSubscriptionRegistry(String roomDestinationPrefix) {
+        this.roomDestinationPrefix = roomDestinationPrefix;
+    }
+
+    @Override
+    protected void addSubscriptionInternal(String sessionId, String subscriptionId, String destination, Message<?> message) {
+        Object key = keyOf(destination);
+        Object previous = sessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>()).put(subscriptionId, key);
+        if(previous != null) {
+            remove(previous, sessionId, subscriptionId);
+        }
+        if(key instanceof Long roomId) {
+            rooms.compute(roomId, (id, subscribers) -> with(subscribers, sessionId, subscriptionId));
+        } else {
+            destinations.compute((String) key, (d, subscribers) -> with(subscribers, sessionId, subscriptionId));
+        }
+    }
+
+    @Override
+    protected void removeSubscriptionInternal(String sessionId, String subscriptionId, Message<?> message) {
+        Map<String, Object> subscriptions = sessions.get(sessionId);
+        if(subscriptions == null) return;
+        Object key = subscriptions.remove(subscriptionId);
+        if(key != null) {
+            remove(key, sessionId, subscriptionId);
+        }
+    }
+
+    @Override
+    public void unregisterAllSubscriptions(String sessionId) {
+        Map<String, Object> subscriptions = sessions.remove(sessionId);
+        if(subscriptions == null) return;
+        subscriptions.forEach((subscriptionId, key) -> remove(key, sessionId, subscriptionId));
+    }
+
+    @Override
+    protected MultiValueMap<String, String> findSubscriptionsInternal(String destination, Message<?> message) {
+        Subscribers subscribers;
+        if(message.getHeaders().get(ROOM_ID_HEADER) instanceof Long roomId) {
+            subscribers = rooms.get(roomId);
+        } else {
+            Object key = keyOf(destination);
+            subscribers = key instanceof Long roomId ? rooms.get(roomId) : destinations.get((String) key);
+        }
+        return subscribers == null ? EMPTY : subscribers.view;
+    }
+
+    private void remove(Object key, String sessionId, String subscriptionId) {
+        if(key instanceof Long roomId) {
+            rooms.computeIfPresent(roomId, (id, subscribers) -> without(subscribers, sessionId, subscriptionId));
+        } else {
+            destinations.computeIfPresent((String) key, (d, subscribers) -> without(subscribers, sessionId, subscriptionId));
+        }
+    }
+
+    // /topic/{roomId} 면 roomId, 아니면 destination 그대로
+    private Object keyOf(String destination) {
+        int start = roomDestinationPrefix.length();
+        int length = destination.length();
+        if(length == start || !destination.startsWith(roomDestinationPrefix)) return destination;
+        long roomId = 0;
+        for(int i = start; i < length; i++) {
+            int digit = destination.charAt(i) - '0';
+            if(digit < 0 || digit > 9) return destination;
+            roomId = roomId * 10 + digit;
+        }
+        return roomId;
+    }
+
+    private static Subscribers with(Subscribers subscribers, String sessionId, String subscriptionId) {
+        Subscribers target = subscribers == null ? new Subscribers() : subscribers;
+        target.bySession.computeIfAbsent(sessionId, id -> new CopyOnWriteArrayList<>()).add(subscriptionId);
+        return target;
+    }
+
+    // 구독이 모두 없어지면 null => map에서 제거
+    private static Subscribers without(Subscribers subscribers, String sessionId, String subscriptionId) {
+        subscribers.bySession.computeIfPresent(sessionId, (id, subscriptionIds) -> {
+            subscriptionIds.remove(subscriptionId);
+            return subscriptionIds.isEmpty() ? null : subscriptionIds;
+        });
+        return subscribers.bySession.isEmpty() ? null : subscribers;
+    }
+
+    // sessionId -> subscriptionIds (세션별 list는 보통 1개라 copy-on-write 비용이 작다)
+    // view는 broker에 그대로 넘기는 읽기용 MultiValueMap
+    private static final class Subscribers {
+        private final Map<String, List<String>> bySession = new ConcurrentHashMap<>();
+        private final MultiValueMap<String, String> view = CollectionUtils.unmodifiableMultiValueMap(CollectionUtils.toMultiValueMap(bySession));
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.example.chatserver.chat.config;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 연결된 websocket 세션마다 SlowConsumerSessionDecorator를 씌우고, 세션별 버퍼 현황을 제공
+@Component
+public class SlowConsumerHandlerDecoratorFactory implements WebSocketHandlerDecoratorFactory {
+
+    private final SlowConsumerPolicy policy;
+    private final int bufferSizeLimit;
+    private final long sendTimeLimitMs;
+
+    // 세션별 flush 작업 (소켓 쓰기에서 block 될 수 있으므로 virtual thread)
+    private final ExecutorService flushExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // sessionId -> 전송 버퍼
+    private final Map<String, SlowConsumerSessionDecorator> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong disconnectCount = new AtomicLong();
+
+    public SlowConsumerHandlerDecoratorFactory(@Value("${chat.outbound.slow-consumer.policy:DISCONNECT}") SlowConsumerPolicy policy,
+                                               @Value("${chat.outbound.slow-consumer.buffer-size-limit:524288}") int bufferSizeLimit,
+                                               @Value("${chat.outbound.slow-consumer.send-time-limit-ms:10000}") long sendTimeLimitMs) {
+        this.policy = policy;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+    }
+
+    public int getBufferSizeLimit() {
+        return bufferSizeLimit;
+    }
+
+    public long getSendTimeLimitMs() {
+        return sendTimeLimitMs;
+    }
+
+    public Collection<SlowConsumerSessionDecorator> getSessions() {
+        return sessions.values();
+    }
+
+    public long getTotalBufferedBytes() {
+        long total = 0;
+        for(SlowConsumerSessionDecorator s : sessions.values()) {
+            total += s.getBufferedBytes();
+        }
+        return total;
+    }
+
+    public long getDisconnectCount() {
+        return disconnectCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdownNow();
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                // 이후 이 세션으로 나가는 모든 메세지는 전송 버퍼를 거친다
+                SlowConsumerSessionDecorator decorated = new SlowConsumerSessionDecorator(session, policy, bufferSizeLimit, sendTimeLimitMs, flushExecutor);
+                sessions.put(session.getId(), decorated);
+                super.afterConnectionEstablished(decorated);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                SlowConsumerSessionDecorator decorated = sessions.remove(session.getId());
+                if(decorated != null) {
+                    if(decorated.isDisconnectedAsSlow()) {
+                        disconnectCount.incrementAndGet();
+                    }
+                    decorated.release();
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,13 @@
+package com.example.chatserver.chat.config;
+
+// 클라이언트가 전송 속도를 따라오지 못할 때(버퍼 초과 또는 전송 시간 초과) 처리 방식
+// 기본은 DISCONNECT : 메세지를 버리는 정책은 클라이언트가 빠진 메세지를 감지/복구할 수 있을 때만 명시적으로 켠다
+// 어느 정책이든 MESSAGE 외 프레임(RECEIPT, ERROR 등)은 버리지 않는다
+public enum SlowConsumerPolicy {
+    // 세션을 끊는다 (클라이언트는 재연결 후 stream replay/history로 이어받음)
+    DISCONNECT,
+    // 버퍼가 가득 차면 가장 오래된 MESSAGE 프레임부터 버린다 (그래도 넘으면 끊는다)
+    DROP_OLDEST,
+    // 밀린 프레임을 다음 전송 시 하나의 websocket 메세지로 합쳐 보내고, 버퍼가 가득 차면 DROP_OLDEST와 같이 처리
+    COALESCE
+}
@@ -0,0 +1,233 @@
+package com.example.chatserver.chat.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// 세션별 전송 버퍼 : sendMessage는 버퍼에 넣고 바로 반환, 실제 전송은 flush 스레드가 순서대로 처리
+// - broker 스레드가 느린 클라이언트의 소켓 쓰기에 묶이지 않는다
+// - 버퍼 크기/전송 시간 제한을 넘으면 SlowConsumerPolicy에 따라 처리하므로 세션당 메모리는 buffer-size-limit 이내
+// - 버릴 수 있는 프레임은 구독 메세지(STOMP MESSAGE)뿐 : RECEIPT, ERROR, CONNECTED, 하트비트는 버리지 않는다
+public class SlowConsumerSessionDecorator extends WebSocketSessionDecorator {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowConsumerSessionDecorator.class);
+
+    private static final String MESSAGE_COMMAND = "MESSAGE";
+    private static final byte[] MESSAGE_COMMAND_BYTES = MESSAGE_COMMAND.getBytes(StandardCharsets.UTF_8);
+
+    private final SlowConsumerPolicy policy;
+    private final int bufferSizeLimit;
+    private final long sendTimeLimitNanos;
+    private final Executor flushExecutor;
+
+    // synchronized 대신 lock 사용 (virtual thread pinning 방지)
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<WebSocketMessage<?>> buffer = new ArrayDeque<>();
+    private boolean flushing;
+
+    private final AtomicLong bufferedBytes = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile long sendStartNanos;
+    private volatile boolean closing;
+    private volatile boolean disconnectedAsSlow;
+
+    public SlowConsumerSessionDecorator(WebSocketSession session, SlowConsumerPolicy policy, int bufferSizeLimit, long sendTimeLimitMs, Executor flushExecutor) {
+        super(session);
+        this.policy = policy;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.sendTimeLimitNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeLimitMs);
+        this.flushExecutor = flushExecutor;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if(closing) return;
+
+        boolean disconnect = false;
+        boolean startFlush = false;
+        lock.lock();
+        try {
+            buffer.addLast(message);
+            bufferedBytes.addAndGet(message.getPayloadLength());
+            if(isSlow()) {
+                disconnect = handleOverflow();
+            }
+            if(!disconnect && !flushing) {
+                flushing = true;
+                startFlush = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if(disconnect) {
+            log.info("slow consumer 세션 종료 sessionId={}", getId());
+            closeQuietly(CloseStatus.SESSION_NOT_RELIABLE);
+        } else if(startFlush) {
+            flushExecutor.execute(this::flush);
+        }
+    }
+
+    public long getBufferedBytes() {
+        return bufferedBytes.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    // DISCONNECT 정책으로 끊은 세션인지
+    public boolean isDisconnectedAsSlow() {
+        return disconnectedAsSlow;
+    }
+
+    // 세션 종료 시 버퍼 정리
+    public void release() {
+        lock.lock();
+        try {
+            closing = true;
+            clearBuffer();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isSlow() {
+        if(bufferedBytes.get() > bufferSizeLimit) return true;
+        long started = sendStartNanos;
+        return started != 0 && System.nanoTime() - started > sendTimeLimitNanos;
+    }
+
+    // lock 안에서 호출, 세션을 끊어야 하면 true
+    private boolean handleOverflow() {
+        if(policy == SlowConsumerPolicy.DISCONNECT) {
+            return markDisconnected();
+        }
+        // DROP_OLDEST, COALESCE : 가장 최근 프레임은 남기고 오래된 MESSAGE 프레임부터 버린다
+        Iterator<WebSocketMessage<?>> it = buffer.iterator();
+        int droppable = buffer.size() - 1;
+        while(bufferedBytes.get() > bufferSizeLimit && droppable-- > 0) {
+            WebSocketMessage<?> candidate = it.next();
+            if(!isMessageFrame(candidate)) continue;
+            it.remove();
+            bufferedBytes.addAndGet(-candidate.getPayloadLength());
+            droppedCount.incrementAndGet();
+        }
+        // MESSAGE 외 프레임만으로 제한을 넘으면 버리지 않고 끊는다
+        if(bufferedBytes.get() > bufferSizeLimit) {
+            return markDisconnected();
+        }
+        return false;
+    }
+
+    private boolean markDisconnected() {
+        closing = true;
+        disconnectedAsSlow = true;
+        clearBuffer();
+        return true;
+    }
+
+    // STOMP MESSAGE 프레임인지 (command가 첫 줄)
+    private static boolean isMessageFrame(WebSocketMessage<?> message) {
+        if(message instanceof TextMessage text) {
+            String payload = text.getPayload();
+            return payload.startsWith(MESSAGE_COMMAND) && payload.length() > MESSAGE_COMMAND.length()
+                    && (payload.charAt(MESSAGE_COMMAND.length()) == '\n' || payload.charAt(MESSAGE_COMMAND.length()) == '\r');
+        }
+        if(message instanceof BinaryMessage binary) {
+            ByteBuffer payload = binary.getPayload();
+            if(payload.remaining() <= MESSAGE_COMMAND_BYTES.length) return false;
+            int start = payload.position();
+            for(int i = 0; i < MESSAGE_COMMAND_BYTES.length; i++) {
+                if(payload.get(start + i) != MESSAGE_COMMAND_BYTES[i]) return false;
+            }
+            byte next = payload.get(start + MESSAGE_COMMAND_BYTES.length);
+            return next == '\n' || next == '\r';
+        }
+        return false;
+    }
+
+    private void flush() {
+        while(true) {
+            WebSocketMessage<?> next;
+            lock.lock();
+            try {
+                next = closing ? null : (policy == SlowConsumerPolicy.COALESCE ? pollCoalesced() : pollFirst());
+                if(next == null) {
+                    flushing = false;
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            sendStartNanos = System.nanoTime();
+            try {
+                getDelegate().sendMessage(next);
+            } catch (IOException | RuntimeException e) {
+                log.debug("websocket 전송 실패 sessionId={}", getId(), e);
+                release();
+                lock.lock();
+                try {
+                    flushing = false;
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            } finally {
+                sendStartNanos = 0;
+            }
+        }
+    }
+
+    private WebSocketMessage<?> pollFirst() {
+        WebSocketMessage<?> message = buffer.pollFirst();
+        if(message != null) {
+            bufferedBytes.addAndGet(-message.getPayloadLength());
+        }
+        return message;
+    }
+
+    // 밀려 있는 연속된 text 프레임(STOMP frame은 NULL로 끝남)을 하나의 websocket 메세지로 합친다
+    private WebSocketMessage<?> pollCoalesced() {
+        WebSocketMessage<?> first = pollFirst();
+        if(!(first instanceof TextMessage text) || !(buffer.peekFirst() instanceof TextMessage)) {
+            return first;
+        }
+        StringBuilder merged = new StringBuilder(text.getPayload());
+        while(buffer.peekFirst() instanceof TextMessage) {
+            merged.append(((TextMessage) pollFirst()).getPayload());
+        }
+        return new TextMessage(merged);
+    }
+
+    private void clearBuffer() {
+        buffer.clear();
+        bufferedBytes.set(0);
+    }
+
+    private void closeQuietly(CloseStatus status) {
+        try {
+            getDelegate().close(status);
+        } catch (IOException e) {
+            log.debug("slow consumer 세션 종료 실패 sessionId={}", getId(), e);
+        }
+    }
+
+}
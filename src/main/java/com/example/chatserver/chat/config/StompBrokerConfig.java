@@ -0,0 +1,28 @@
+package com.example.chatserver.chat.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+
+@Configuration
+public class StompBrokerConfig {
+
+    // simple broker의 구독 registry를 room 기준 registry로 교체 (chat.broker.room-registry.enabled=false 면 spring 기본 registry)
+    // MessageBrokerRegistry에는 registry 설정이 없으므로 broker handler 생성 후 교체
+    @Bean
+    @ConditionalOnProperty(name = "chat.broker.room-registry.enabled", havingValue = "true", matchIfMissing = true)
+    public static BeanPostProcessor roomSubscriptionRegistryPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if(bean instanceof SimpleBrokerMessageHandler simpleBrokerMessageHandler) {
+                    simpleBrokerMessageHandler.setSubscriptionRegistry(new RoomSubscriptionRegistry("/topic/"));
+                }
+                return bean;
+            }
+        };
+    }
+
+}
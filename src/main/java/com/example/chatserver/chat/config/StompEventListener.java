@@ -1,36 +1,61 @@
 package com.example.chatserver.chat.config;
 
+import com.example.chatserver.chat.service.PresenceService;
+import com.example.chatserver.chat.service.RedisRoomSubscriptionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.event.EventListener;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionConnectEvent;
-import org.springframework.web.socket.messaging.SessionConnectedEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
-
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
 
 // 스프링과 stomp는 기본적으로 세션괄리를 내부적(자동)으로 처리
 // 연결/해제 이벤트를 기록, 연결된 세션수를 실시간으로 확인할 목적으로 이벤트 리스너 생성 => 로그, 디버깅 목적
+// 세션 -> member 매핑과 접속자 집계는 PresenceService (CONNECT는 인증 후 StompHandler에서 등록)
+// SUBSCRIBE는 StompHandler 검증을 통과해 inbound 채널에 전달된 프레임만 반영 (거부된 프레임이 구독 수에 남지 않도록)
 @Component
 public class StompEventListener {
 
-    private final Set<String> sessions = ConcurrentHashMap.newKeySet();
+    private static final Logger log = LoggerFactory.getLogger(StompEventListener.class);
+
+    private final RedisRoomSubscriptionService redisRoomSubscriptionService;
+    private final PresenceService presenceService;
+
+    public StompEventListener(RedisRoomSubscriptionService redisRoomSubscriptionService, PresenceService presenceService) {
+        this.redisRoomSubscriptionService = redisRoomSubscriptionService;
+        this.presenceService = presenceService;
+    }
 
     @EventListener
     public void connectHandle(SessionConnectEvent event) {
         StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
-        sessions.add(accessor.getSessionId());
-        System.out.println("connect session ID" + accessor.getSessionId());
-        System.out.println("total session : " + sessions.size());
+        log.debug("connect sessionId={} total={}", accessor.getSessionId(), presenceService.getLocalSessionCount());
+    }
+
+    @EventListener
+    public void subscribeHandle(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Long roomId = StompHandler.roomIdOf(accessor.getDestination());
+        redisRoomSubscriptionService.subscribe(accessor.getSessionId(), accessor.getSubscriptionId(), accessor.getDestination());
+        presenceService.subscribed(accessor.getSessionId(), accessor.getSubscriptionId(), roomId);
+    }
+
+    @EventListener
+    public void unsubscribeHandle(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        redisRoomSubscriptionService.unsubscribe(accessor.getSessionId(), accessor.getSubscriptionId());
+        presenceService.unsubscribed(accessor.getSessionId(), accessor.getSubscriptionId());
     }
 
     @EventListener
     public void disconnectHandle(SessionDisconnectEvent event) {
         StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
-        sessions.remove(accessor.getSessionId());
-        System.out.println("remove connect session ID" + accessor.getSessionId());
-        System.out.println("total session : " + sessions.size());
+        redisRoomSubscriptionService.unsubscribeAll(accessor.getSessionId());
+        presenceService.disconnected(accessor.getSessionId());
+        log.debug("disconnect sessionId={} total={}", accessor.getSessionId(), presenceService.getLocalSessionCount());
     }
 
 }
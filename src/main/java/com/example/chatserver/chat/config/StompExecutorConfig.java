@@ -0,0 +1,44 @@
+package com.example.chatserver.chat.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+
+@Configuration
+public class StompExecutorConfig {
+
+    // STOMP inbound 채널의 room별 순서 보장 executor (opt-in : chat.inbound.room-lanes.enabled=true 일 때만)
+    // 꺼져 있으면 spring 기본 pool(virtual thread 모드면 virtual thread) + 세션별 수신 순서만 보장
+    // virtual thread 모드에서는 고정 lane 스레드 대신 room별 큐를 virtual thread로 처리
+    @Bean
+    @ConditionalOnProperty(name = "chat.inbound.room-lanes.enabled", havingValue = "true")
+    public RoomOrderedExecutor roomOrderedExecutor(@Value("${chat.inbound.room-lanes.count:0}") int laneCount,
+                                                   @Value("${chat.inbound.room-lanes.queue-depth:1000}") int queueDepth,
+                                                   @Value("${chat.inbound.room-lanes.offer-timeout-ms:1000}") long offerTimeoutMs,
+                                                   @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int lanes = laneCount > 0 ? laneCount : cores * 2;
+        if(virtualThreads) {
+            return new RoomOrderedExecutor("/publish/", otherFrameExecutor(true, cores), new VirtualThreadTaskExecutor("stomp-room-"), lanes, queueDepth, offerTimeoutMs);
+        }
+        return new RoomOrderedExecutor("/publish/", otherFrameExecutor(false, cores), lanes, queueDepth, offerTimeoutMs);
+    }
+
+    // SEND 외 프레임(CONNECT, SUBSCRIBE, DISCONNECT 등) 처리용
+    private static Executor otherFrameExecutor(boolean virtualThreads, int cores) {
+        if(virtualThreads) {
+            return new VirtualThreadTaskExecutor("stomp-inbound-");
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(cores * 2);
+        executor.setThreadNamePrefix("stomp-inbound-");
+        executor.initialize();
+        return executor;
+    }
+
+}
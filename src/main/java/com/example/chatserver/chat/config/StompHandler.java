@@ -1,71 +1,115 @@
 package com.example.chatserver.chat.config;
 
 import com.example.chatserver.chat.service.ChatService;
+import com.example.chatserver.chat.service.PresenceService;
+import com.example.chatserver.common.auth.JwtTokenProvider;
+import com.example.chatserver.member.service.MemberCache;
+import com.example.chatserver.member.service.MemberCache.CachedMember;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import org.springframework.beans.factory.annotation.Value;
+import jakarta.persistence.EntityNotFoundException;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+
 @Component
 public class StompHandler implements ChannelInterceptor {
 
-    @Value("${jwt.secretKey}")
-    private String secretKey;
+    // STOMP 세션 속성에 저장하는 인증된 사용자 id
+    public static final String MEMBER_ID_ATTRIBUTE = "memberId";
 
     private final ChatService chatService;
+    private final JwtTokenProvider jwtTokenProvider;
+    private final MemberCache memberCache;
+    private final PresenceService presenceService;
 
-    public StompHandler(ChatService chatService) {
+    public StompHandler(ChatService chatService, JwtTokenProvider jwtTokenProvider, MemberCache memberCache, PresenceService presenceService) {
         this.chatService = chatService;
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.memberCache = memberCache;
+        this.presenceService = presenceService;
     }
 
+    // 토큰 검증은 CONNECT 시 한 번만 하고, 인증된 사용자(principal)를 세션에 저장
+    // 이후 SUBSCRIBE/SEND 프레임은 세션의 principal을 그대로 사용
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
-        final StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        // setUser()가 세션에 반영되도록 새로 wrap하지 않고 메세지의 accessor를 사용
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if(accessor == null) {
+            accessor = StompHeaderAccessor.wrap(message);
+        }
 
         if(StompCommand.CONNECT == accessor.getCommand()) {
-            System.out.println("connect 요청 시 토큰 유효성 검증");
             String bearerToken = accessor.getFirstNativeHeader("Authorization");
-            String token = bearerToken.substring(7);
+            if(bearerToken == null || !bearerToken.startsWith("Bearer ")) {
+                throw new AuthenticationServiceException("connect - Bearer 토큰이 없습니다.");
+            }
 
             // 토큰 검증
-            Jwts.parserBuilder()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-            System.out.println("connect 요청 시 토큰 유효성 검증 완료");
+            Claims claims = jwtTokenProvider.parseClaims(bearerToken.substring(7));
+            CachedMember member = memberCache.findByEmail(claims.getSubject()).orElseThrow(() -> new EntityNotFoundException("connect - 사용자를 찾을 수 없습니다."));
+
+            accessor.setUser(new UsernamePasswordAuthenticationToken(claims.getSubject(), "",
+                    List.of(new SimpleGrantedAuthority("ROLE_" + claims.get("role")))));
+            sessionAttributes(accessor).put(MEMBER_ID_ATTRIBUTE, member.id());
+            presenceService.connected(accessor.getSessionId(), member.id());
         }
 
         if(StompCommand.SUBSCRIBE == accessor.getCommand()) {
-            System.out.println("SUBSCRIBE 검증");
-            String bearerToken = accessor.getFirstNativeHeader("Authorization");
-            String token = bearerToken.substring(7);
+            Long memberId = authenticatedMemberId(accessor);
+            Long roomId = roomIdOf(accessor.getDestination());
 
-            // 토큰 검증
-
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(secretKey)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            if(!chatService.isRoomPaticipant(memberId, roomId)) {
+                throw new AuthenticationServiceException("해당 room에 인증되지않은 사용자입니다.");
+            }
+            // room 채널 구독 수, 접속자 집계는 프레임이 채널에 전달된 뒤(SessionSubscribeEvent) StompEventListener에서 반영
+        }
 
-            String email = claims.getSubject();
-            String roomId = accessor.getDestination().split("/")[2];
+        if(StompCommand.SEND == accessor.getCommand()) {
+            Long memberId = authenticatedMemberId(accessor);
+            Long roomId = roomIdOf(accessor.getDestination());
 
-            if(!chatService.isRoomPaticipant(email, Long.parseLong(roomId))) {
+            if(!chatService.isRoomPaticipant(memberId, roomId)) {
                 throw new AuthenticationServiceException("해당 room에 인증되지않은 사용자입니다.");
             }
-
-            System.out.println("SUBSCRIBE 검증 완료");
         }
 
         return message;
     }
 
-}
\ No newline at end of file
+    // /topic/{roomId}/..., /publish/{roomId} 의 roomId
+    public static Long roomIdOf(String destination) {
+        return Long.parseLong(destination.split("/")[2]);
+    }
+
+    // CONNECT 시 저장한 사용자 id, principal이 없는 세션(인증 전 프레임)은 거부
+    public static Long authenticatedMemberId(SimpMessageHeaderAccessor accessor) {
+        Principal principal = accessor.getUser();
+        Object memberId = accessor.getSessionAttributes() == null ? null : accessor.getSessionAttributes().get(MEMBER_ID_ATTRIBUTE);
+        if(principal == null || memberId == null) {
+            throw new AuthenticationServiceException("인증되지 않은 STOMP 세션입니다.");
+        }
+        return (Long) memberId;
+    }
+
+    private static Map<String, Object> sessionAttributes(StompHeaderAccessor accessor) {
+        Map<String, Object> sessionAttributes = accessor.getSessionAttributes();
+        if(sessionAttributes == null) {
+            throw new AuthenticationServiceException("connect - 세션 정보를 찾을 수 없습니다.");
+        }
+        return sessionAttributes;
+    }
+
+}
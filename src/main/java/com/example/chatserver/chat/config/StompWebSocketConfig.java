@@ -1,11 +1,17 @@
 package com.example.chatserver.chat.config;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
@@ -13,8 +19,20 @@ public class StompWebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final StompHandler stompHandler;
 
-    public StompWebSocketConfig(StompHandler stompHandler) {
+    // spring.threads.virtual.enabled=true 면 tomcat 요청 처리(spring boot)와 STOMP inbound/outbound 채널을 virtual thread로 실행
+    // 채널 메세지마다 virtual thread가 만들어지므로 세션별 수신/발행 순서 보존을 함께 켠다
+    private final boolean virtualThreads;
+
+    // room별 순서 보장 executor (StompExecutorConfig, 비활성화 시 null)
+    private final RoomOrderedExecutor roomOrderedExecutor;
+
+    private final SlowConsumerHandlerDecoratorFactory slowConsumerHandlerDecoratorFactory;
+
+    public StompWebSocketConfig(StompHandler stompHandler, @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads, ObjectProvider<RoomOrderedExecutor> roomOrderedExecutor, SlowConsumerHandlerDecoratorFactory slowConsumerHandlerDecoratorFactory) {
         this.stompHandler = stompHandler;
+        this.virtualThreads = virtualThreads;
+        this.roomOrderedExecutor = roomOrderedExecutor.getIfAvailable();
+        this.slowConsumerHandlerDecoratorFactory = slowConsumerHandlerDecoratorFactory;
     }
 
     @Override
@@ -23,6 +41,15 @@ public class StompWebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOrigins("http://localhost", "http://localhost:80")
                 .withSockJS();
         // ws://가 아닌 http:// 엔드포인트를 사용할 수 있게 해주는 sockJs라이브러리를 통한 요청을 허용하는 설정
+
+        // sockJs 없이 바로 websocket으로 연결하는 엔드포인트 (sockJs framing 없음, permessage-deflate 압축 협상)
+        // /connect(sockJs)는 websocket을 쓸 수 없는 환경의 fallback으로 유지
+        registry.addEndpoint("/ws")
+                .setAllowedOrigins("http://localhost", "http://localhost:80");
+
+        // 같은 세션의 프레임은 받은 순서대로 처리
+        // 세션 단위 순서만 보장하므로, 여러 세션이 보낸 같은 room 메세지의 순서는 room lane(chat.inbound.room-lanes.enabled)이 있어야 지켜진다
+        registry.setPreserveReceiveOrder(virtualThreads);
     }
 
     @Override
@@ -33,6 +60,28 @@ public class StompWebSocketConfig implements WebSocketMessageBrokerConfigurer {
         
         // /topic/1 형태로 메시지를 수진(subscribe)함을 설정
         registry.enableSimpleBroker("/topic");
+
+        // 같은 세션으로 나가는 메세지는 발행 순서대로 전송
+        registry.setPreservePublishOrder(virtualThreads);
+    }
+
+    // /ws 업그레이드 요청의 permessage-deflate 협상 설정
+    @Bean
+    public FilterRegistrationBean<WebSocketCompressionFilter> webSocketCompressionFilter(@Value("${chat.websocket.compression.enabled:true}") boolean enabled,
+                                                                                        @Value("${chat.websocket.compression.server-no-context-takeover:false}") boolean serverNoContextTakeover,
+                                                                                        @Value("${chat.websocket.compression.client-no-context-takeover:false}") boolean clientNoContextTakeover) {
+        FilterRegistrationBean<WebSocketCompressionFilter> registration = new FilterRegistrationBean<>(new WebSocketCompressionFilter(enabled, serverNoContextTakeover, clientNoContextTakeover));
+        registration.addUrlPatterns("/ws");
+        return registration;
+    }
+
+    // 느린 클라이언트 보호 : 세션별 전송 버퍼(SlowConsumerSessionDecorator)가 크기/시간 제한과 정책(disconnect, drop-oldest, coalesce)을 적용
+    // spring 기본 decorator에도 같은 제한을 걸어 두지만, 전송 버퍼가 바로 반환하므로 실제로는 쌓이지 않는다
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit((int) slowConsumerHandlerDecoratorFactory.getSendTimeLimitMs());
+        registration.setSendBufferSizeLimit(slowConsumerHandlerDecoratorFactory.getBufferSizeLimit());
+        registration.addDecoratorFactory(slowConsumerHandlerDecoratorFactory);
     }
 
     // 웹 소켓 요청(connect, subscribe, disconnect) 등의 요청 시에는 http header 등 http 메세지를 넣어 올 수 있고,
@@ -40,6 +89,20 @@ public class StompWebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
         registration.interceptors(stompHandler);
+        if(roomOrderedExecutor != null) {
+            // 같은 room의 SEND는 같은 lane에서 순서대로, 다른 room은 병렬로 StomController.sendMessage 처리
+            registration.executor(roomOrderedExecutor);
+        } else if(virtualThreads) {
+            // JDBC 저장 등으로 block 되어도 다른 room의 프레임 처리가 pool 크기에 묶이지 않도록
+            registration.executor(new VirtualThreadTaskExecutor("stomp-inbound-"));
+        }
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        if(virtualThreads) {
+            registration.executor(new VirtualThreadTaskExecutor("stomp-outbound-"));
+        }
     }
 
 }
@@ -0,0 +1,105 @@
+package com.example.chatserver.chat.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+// native websocket 엔드포인트(/ws)의 permessage-deflate 협상 설정
+// tomcat은 클라이언트가 보낸 Sec-WebSocket-Extensions 헤더로 압축을 협상하므로, 업그레이드 요청의 헤더를 고쳐서 전달
+// - enabled=false : permessage-deflate 제안을 제거 (압축 안 함)
+// - server/client-no-context-takeover : 메세지마다 압축 사전을 초기화 (연결당 메모리 ↓, 압축률 ↓)
+public class WebSocketCompressionFilter extends OncePerRequestFilter {
+
+    private static final String EXTENSIONS_HEADER = "Sec-WebSocket-Extensions";
+    private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+    private static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+    private static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+
+    private final boolean enabled;
+    private final boolean serverNoContextTakeover;
+    private final boolean clientNoContextTakeover;
+
+    public WebSocketCompressionFilter(boolean enabled, boolean serverNoContextTakeover, boolean clientNoContextTakeover) {
+        this.enabled = enabled;
+        this.serverNoContextTakeover = serverNoContextTakeover;
+        this.clientNoContextTakeover = clientNoContextTakeover;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        Enumeration<String> offers = request.getHeaders(EXTENSIONS_HEADER);
+        if(offers == null || !offers.hasMoreElements()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        List<String> rewritten = new ArrayList<>();
+        while(offers.hasMoreElements()) {
+            for(String offer : offers.nextElement().split(",")) {
+                String extension = rewrite(offer.trim());
+                if(extension != null) rewritten.add(extension);
+            }
+        }
+        filterChain.doFilter(new ExtensionsRequest(request, rewritten.isEmpty() ? null : String.join(", ", rewritten)), response);
+    }
+
+    // permessage-deflate 제안이 아니면 그대로, 압축 비활성화면 null
+    private String rewrite(String offer) {
+        if(offer.isEmpty()) return null;
+        String name = offer.split(";", 2)[0].trim();
+        if(!PERMESSAGE_DEFLATE.equalsIgnoreCase(name)) return offer;
+        if(!enabled) return null;
+
+        StringBuilder extension = new StringBuilder(offer);
+        if(serverNoContextTakeover && !offer.contains(SERVER_NO_CONTEXT_TAKEOVER)) {
+            extension.append("; ").append(SERVER_NO_CONTEXT_TAKEOVER);
+        }
+        if(clientNoContextTakeover && !offer.contains(CLIENT_NO_CONTEXT_TAKEOVER)) {
+            extension.append("; ").append(CLIENT_NO_CONTEXT_TAKEOVER);
+        }
+        return extension.toString();
+    }
+
+    private static final class ExtensionsRequest extends HttpServletRequestWrapper {
+        private final String extensions;
+
+        private ExtensionsRequest(HttpServletRequest request, String extensions) {
+            super(request);
+            this.extensions = extensions;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            if(EXTENSIONS_HEADER.equalsIgnoreCase(name)) return extensions;
+            return super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if(EXTENSIONS_HEADER.equalsIgnoreCase(name)) {
+                return extensions == null ? Collections.emptyEnumeration() : Collections.enumeration(List.of(extensions));
+            }
+            return super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            if(extensions != null) return super.getHeaderNames();
+            List<String> names = new ArrayList<>();
+            for(String name : Collections.list(super.getHeaderNames())) {
+                if(!EXTENSIONS_HEADER.equalsIgnoreCase(name)) names.add(name);
+            }
+            return Collections.enumeration(names);
+        }
+    }
+
+}
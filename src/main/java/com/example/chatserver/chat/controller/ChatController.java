@@ -1,22 +1,42 @@
 package com.example.chatserver.chat.controller;
 
+import com.example.chatserver.chat.config.RoomOrderedExecutor;
+import com.example.chatserver.chat.config.SlowConsumerHandlerDecoratorFactory;
+import com.example.chatserver.chat.config.SlowConsumerSessionDecorator;
+import com.example.chatserver.chat.dto.ChatHistoryResDto;
 import com.example.chatserver.chat.dto.ChatMessageDto;
+import com.example.chatserver.chat.dto.ReadReceiptDto;
 import com.example.chatserver.chat.dto.ChatRoomListResDTO;
 import com.example.chatserver.chat.dto.MyChatListResDto;
+import com.example.chatserver.chat.dto.PresenceDto;
 import com.example.chatserver.chat.service.ChatService;
+import com.example.chatserver.chat.service.RecentMessageCache;
+import com.example.chatserver.chat.service.RedisStreamService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/chat")
 public class ChatController {
     private final ChatService chatService;
+    private final RedisStreamService redisStreamService;
+    private final RecentMessageCache recentMessageCache;
+    private final ObjectProvider<RoomOrderedExecutor> roomOrderedExecutor;
+    private final SlowConsumerHandlerDecoratorFactory slowConsumerHandlerDecoratorFactory;
 
-    public ChatController(ChatService chatService) {
+    public ChatController(ChatService chatService, RedisStreamService redisStreamService, RecentMessageCache recentMessageCache, ObjectProvider<RoomOrderedExecutor> roomOrderedExecutor, SlowConsumerHandlerDecoratorFactory slowConsumerHandlerDecoratorFactory) {
         this.chatService = chatService;
+        this.redisStreamService = redisStreamService;
+        this.recentMessageCache = recentMessageCache;
+        this.roomOrderedExecutor = roomOrderedExecutor;
+        this.slowConsumerHandlerDecoratorFactory = slowConsumerHandlerDecoratorFactory;
     }
 
     // 그룹 채팅방 개설
@@ -40,20 +60,86 @@ public class ChatController {
         return ResponseEntity.ok().build();
     }
 
-    // 이전 메세지 조회
+    // 이전 메세지 조회 (before : 이전 페이지의 nextCursor)
     @GetMapping("/history/{roomId}")
-    public ResponseEntity<?> getChattingHistory(@PathVariable Long roomId) {
-        List<ChatMessageDto> chatMessageDtos = chatService.getChatHistory(roomId);
+    public ResponseEntity<?> getChattingHistory(@PathVariable Long roomId, @RequestParam(required = false) Long before, @RequestParam(defaultValue = "50") int limit) {
+        ChatHistoryResDto chatHistoryResDto = chatService.getChatHistory(roomId, before, limit);
+        return ResponseEntity.ok(chatHistoryResDto);
+    }
+
+    // 최근 메세지 캐시 hit/miss 현황
+    @GetMapping("/history/cache/stats")
+    public ResponseEntity<?> getHistoryCacheStats() {
+        Map<String, Object> stats = Map.of(
+                "hits", recentMessageCache.getHitCount(),
+                "misses", recentMessageCache.getMissCount(),
+                "rooms", recentMessageCache.getRoomCount());
+        return ResponseEntity.ok(stats);
+    }
+
+    // STOMP inbound room lane별 대기/처리/거부 건수
+    @GetMapping("/inbound/lanes/stats")
+    public ResponseEntity<?> getInboundLaneStats() {
+        RoomOrderedExecutor executor = roomOrderedExecutor.getIfAvailable();
+        if(executor == null) {
+            return ResponseEntity.ok(List.of());
+        }
+        List<Map<String, Object>> lanes = new ArrayList<>();
+        for(int i = 0; i < executor.getLaneCount(); i++) {
+            lanes.add(Map.of(
+                    "lane", i,
+                    "queued", executor.getQueueSize(i),
+                    "processed", executor.getProcessedCount(i),
+                    "rejected", executor.getRejectedCount(i)));
+        }
+        return ResponseEntity.ok(lanes);
+    }
+
+    // 세션별 전송 버퍼 현황 (버퍼가 많이 쌓인 세션 순으로 limit개)
+    @GetMapping("/outbound/sessions/stats")
+    public ResponseEntity<?> getOutboundSessionStats(@RequestParam(defaultValue = "20") int limit) {
+        List<Map<String, Object>> sessions = slowConsumerHandlerDecoratorFactory.getSessions().stream()
+                .sorted(Comparator.comparingLong(SlowConsumerSessionDecorator::getBufferedBytes).reversed())
+                .limit(limit)
+                .map(s -> Map.<String, Object>of(
+                        "sessionId", s.getId(),
+                        "bufferedBytes", s.getBufferedBytes(),
+                        "dropped", s.getDroppedCount()))
+                .toList();
+        Map<String, Object> stats = Map.of(
+                "totalBufferedBytes", slowConsumerHandlerDecoratorFactory.getTotalBufferedBytes(),
+                "disconnects", slowConsumerHandlerDecoratorFactory.getDisconnectCount(),
+                "sessions", sessions);
+        return ResponseEntity.ok(stats);
+    }
+
+    // 재연결 시 마지막으로 받은 stream id 이후 메세지 조회 (chat.transport=stream, after는 {ms}-{seq} 형식, limit은 chat.stream.max-length까지)
+    @GetMapping("/history/{roomId}/stream")
+    public ResponseEntity<?> getStreamReplay(@PathVariable Long roomId, @RequestParam(required = false) String after, @RequestParam(defaultValue = "100") int limit) {
+        if(after != null && !RedisStreamService.isValidStreamId(after)) {
+            return ResponseEntity.badRequest().body("after - 잘못된 stream id 입니다 : " + after);
+        }
+        if(limit < 1) {
+            return ResponseEntity.badRequest().body("limit - 1 이상이어야 합니다 : " + limit);
+        }
+        List<ChatMessageDto> chatMessageDtos = redisStreamService.replay(roomId, after, limit);
         return ResponseEntity.ok(chatMessageDtos);
     }
     
     // 채팅 메세지 읽음 처리
     @PostMapping("/room/{roomId}/read")
     public ResponseEntity<?> messageRead(@PathVariable Long roomId){
-        chatService.messageRead(roomId);
-        return ResponseEntity.ok().build();
+        ReadReceiptDto readReceiptDto = chatService.messageRead(roomId);
+        return ResponseEntity.ok(readReceiptDto);
     }
     
+    // room 접속자 수 (변경은 /topic/{roomId}/presence 로도 전달)
+    @GetMapping("/room/{roomId}/presence")
+    public ResponseEntity<?> getRoomPresence(@PathVariable Long roomId) {
+        PresenceDto presenceDto = chatService.getRoomPresence(roomId);
+        return ResponseEntity.ok(presenceDto);
+    }
+
     // 내 채팅방 목록 조회
     @GetMapping("/my/rooms")
     public ResponseEntity<?> getMyChatRooms() {
@@ -1,27 +1,36 @@
 package com.example.chatserver.chat.controller;
 
+import com.example.chatserver.chat.config.StompHandler;
+import com.example.chatserver.chat.domain.ChatMessage;
 import com.example.chatserver.chat.dto.ChatMessageDto;
+import com.example.chatserver.chat.service.ChatBroadcastService;
+import com.example.chatserver.chat.service.ChatMetrics;
+import com.example.chatserver.chat.service.ChatMessageWriteBehindService;
 import com.example.chatserver.chat.service.ChatService;
-import com.example.chatserver.chat.service.RedisPubSubService;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageSendingOperations;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.stereotype.Controller;
 
+import java.time.LocalDateTime;
+
 @Controller
 public class StomController {
 
     private final SimpMessageSendingOperations messageTemplate;
     private final ChatService chatService;
-    private final RedisPubSubService redisPubSubService;
+    private final ChatBroadcastService chatBroadcastService;
+    private final ChatMessageWriteBehindService chatMessageWriteBehindService;
+    private final ChatMetrics chatMetrics;
 
-    public StomController(SimpMessageSendingOperations messageTemplate, ChatService chatService, RedisPubSubService redisPubSubService) {
+    public StomController(SimpMessageSendingOperations messageTemplate, ChatService chatService, ChatBroadcastService chatBroadcastService, ChatMessageWriteBehindService chatMessageWriteBehindService, ChatMetrics chatMetrics) {
         this.messageTemplate = messageTemplate;
         this.chatService = chatService;
-        this.redisPubSubService = redisPubSubService;
+        this.chatBroadcastService = chatBroadcastService;
+        this.chatMessageWriteBehindService = chatMessageWriteBehindService;
+        this.chatMetrics = chatMetrics;
     }
 
     // 방법1. MessageMapping(수신)과 sendTo(topic에 메시지 전달) 한꺼번에 처리
@@ -36,14 +45,27 @@ public class StomController {
     // why? redis pub/sub 연동시 유연성이 떨어지기 때문에
     @MessageMapping("/{roomId}") // 클라이언트에서 특정 publish/roomId 형태로 메세지 발생시 MessageMapping 수신
     @SendTo("/topic/{roomId}") // 해당 roomId에 메세지를 발행하여 구독 중인 클라이언트에게 메세지 전송
-    public void sendMessage(@DestinationVariable Long roomId, ChatMessageDto chatMessageReqDto) throws JsonProcessingException { // @DestinationVariable은 @MessageMapping어노테이션으로 정의된 Websocket Controller 내에서만 사용
-        chatService.saveMessage(roomId, chatMessageReqDto);
+    public void sendMessage(@DestinationVariable Long roomId, ChatMessageDto chatMessageReqDto, SimpMessageHeaderAccessor headerAccessor) { // @DestinationVariable은 @MessageMapping어노테이션으로 정의된 Websocket Controller 내에서만 사용
+        long start = System.nanoTime();
+        // 보낸이는 클라이언트가 보낸 senderEmail이 아니라 CONNECT 시 인증된 세션 사용자
+        Long senderId = StompHandler.authenticatedMemberId(headerAccessor);
+        chatMessageReqDto.setSenderEmail(headerAccessor.getUser().getName());
         chatMessageReqDto.setRoomId(roomId);
+        chatMessageReqDto.setCreatedTime(LocalDateTime.now());
+        chatMessageReqDto.setSentAt(System.currentTimeMillis());
+
+        // write-behind 모드면 큐에 넣고 바로 broadcast, 큐에 넣지 못하면 동기 저장
+        if(!chatMessageWriteBehindService.submit(roomId, senderId, chatMessageReqDto)) {
+            long saveStart = System.nanoTime();
+            ChatMessage chatMessage = chatService.saveMessage(roomId, senderId, chatMessageReqDto);
+            chatMetrics.recordSave(saveStart);
+            chatMessageReqDto.setMessageId(chatMessage.getId());
+            chatMessageReqDto.setCreatedTime(chatMessage.getCreatedTime());
+        }
 //        messageTemplate.convertAndSend("/topic/"+roomId, chatMessageReqDto);
 
-        ObjectMapper om = new ObjectMapper();
-        String message = om.writeValueAsString(chatMessageReqDto);
-        redisPubSubService.pulish("chat", message);
+        chatBroadcastService.broadcast(roomId, chatMessageReqDto);
+        chatMetrics.recordReceive(start);
     }
 
 }
\ No newline at end of file
@@ -27,4 +27,9 @@ public class ChatParticipant extends BaseTimeEntity {
     @JoinColumn(name = "member_id", nullable = false)
     private Member member;
 
+    // 마지막으로 읽은 메세지 id (읽음 커서). 이 id보다 큰 메세지 중 내가 보내지 않은 메세지가 안읽은 메세지
+    @Column(nullable = false)
+    @Builder.Default
+    private Long lastReadMessageId = 0L;
+
 }
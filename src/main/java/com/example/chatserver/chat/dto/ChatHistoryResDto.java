@@ -0,0 +1,18 @@
+package com.example.chatserver.chat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ChatHistoryResDto {
+    private List<ChatMessageDto> messages;
+    // 다음(더 이전) 페이지 조회 시 before로 전달, 더 없으면 null
+    private Long nextCursor;
+}
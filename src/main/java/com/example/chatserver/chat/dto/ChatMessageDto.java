@@ -1,16 +1,30 @@
 package com.example.chatserver.chat.dto;
 
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
+// originNodeId, sentAt은 payload 앞쪽에 두어 수신 노드가 파싱 없이 바로 찾을 수 있게 한다 (ChatDeliveryService, ChatMetrics)
+@JsonPropertyOrder({"originNodeId", "sentAt"})
 @Builder
 public class ChatMessageDto {
     private Long roomId;
+    // 저장된 메세지 id (이전 메세지 페이징 커서로 사용, write-behind 모드의 실시간 메세지에는 없음)
+    private Long messageId;
     private String message;
     private String senderEmail;
+    private LocalDateTime createdTime;
+    // stream transport replay 조회 시 해당 메세지의 stream id (재연결 시 이 id 이후부터 이어받는다)
+    private String streamId;
+    // SEND 프레임을 받아 발행한 노드 id (발행 노드는 로컬 구독자에게 직접 전달하고 redis에서 돌아온 자기 메세지는 버린다)
+    private String originNodeId;
+    // 서버가 SEND 프레임을 받은 시각 (epoch ms, 노드 간 end-to-end 지연 측정용)
+    private Long sentAt;
 }
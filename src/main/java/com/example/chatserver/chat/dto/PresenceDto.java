@@ -0,0 +1,16 @@
+package com.example.chatserver.chat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PresenceDto {
+    private Long roomId;
+    // room을 구독 중인 접속자 수 (노드별 중복 제거, 여러 노드에 동시에 접속한 사용자는 노드 수만큼 집계)
+    private long online;
+}
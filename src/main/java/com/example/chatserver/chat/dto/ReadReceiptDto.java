@@ -0,0 +1,19 @@
+package com.example.chatserver.chat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ReadReceiptDto {
+    private Long roomId;
+    private String readerEmail;
+    // 이 id까지의 메세지를 읽음
+    private Long lastReadMessageId;
+    // 읽음 커서가 실제로 이동했으면 1, 이미 읽은 상태였으면 0
+    private int updated;
+}
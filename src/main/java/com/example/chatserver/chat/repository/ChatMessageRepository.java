@@ -1,13 +1,31 @@
 package com.example.chatserver.chat.repository;
 
 import com.example.chatserver.chat.domain.ChatMessage;
-import com.example.chatserver.chat.domain.ChatRoom;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
-    List<ChatMessage> findByChatRoomOrderByCreatedTimeAsc(ChatRoom chatRoom);
+    // keyset 페이징 : before보다 작은 id를 최신순으로 조회, 보낸이는 fetch join
+    @Query("SELECT m FROM ChatMessage m JOIN FETCH m.member WHERE m.chatRoom.id = :roomId AND m.id < :before ORDER BY m.id DESC")
+    List<ChatMessage> findPageBefore(@Param("roomId") Long roomId, @Param("before") Long before, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(m.id), 0) FROM ChatMessage m WHERE m.chatRoom.id = :roomId")
+    Long findLastMessageId(@Param("roomId") Long roomId);
+
+    // 참여 중인 모든 room의 안읽은 메세지 수를 한 번에 조회 (읽음 커서 이후 메세지 중 내가 보내지 않은 메세지, 0건인 room은 결과에 없음)
+    @Query("SELECT cp.chatRoom.id AS roomId, COUNT(m) AS unreadCount FROM ChatParticipant cp, ChatMessage m " +
+            "WHERE cp.member.id = :memberId AND m.chatRoom = cp.chatRoom AND m.id > cp.lastReadMessageId AND m.member.id <> :memberId " +
+            "GROUP BY cp.chatRoom.id")
+    List<RoomUnreadCount> countUnreadGroupByRoom(@Param("memberId") Long memberId);
+
+    interface RoomUnreadCount {
+        Long getRoomId();
+        Long getUnreadCount();
+    }
 }
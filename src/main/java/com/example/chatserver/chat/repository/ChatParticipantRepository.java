@@ -3,9 +3,10 @@ package com.example.chatserver.chat.repository;
 import com.example.chatserver.chat.domain.ChatParticipant;
 import com.example.chatserver.chat.domain.ChatRoom;
 import com.example.chatserver.member.domain.Member;
-import io.lettuce.core.dynamic.annotation.Param;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -17,6 +18,18 @@ public interface ChatParticipantRepository extends JpaRepository<ChatParticipant
     Optional<ChatParticipant> findByChatRoomAndMember(ChatRoom chatRoom, Member member);
     List<ChatParticipant> findAllByMember(Member member);
 
+    @Query("SELECT cp FROM ChatParticipant cp JOIN FETCH cp.chatRoom WHERE cp.member.id = :memberId")
+    List<ChatParticipant> findAllWithRoomByMemberId(@Param("memberId") Long memberId);
+    boolean existsByChatRoomIdAndMemberId(Long roomId, Long memberId);
+
+    @Query("SELECT cp.member.id FROM ChatParticipant cp WHERE cp.chatRoom.id = :roomId")
+    List<Long> findMemberIdsByChatRoomId(@Param("roomId") Long roomId);
+
     @Query("SELECT cp1.chatRoom FROM ChatParticipant cp1 JOIN ChatParticipant cp2 ON cp1.chatRoom.id = cp2.chatRoom.id WHERE cp1.member.id = :myId AND cp2.member.id = :chatMemberId AND cp1.chatRoom.isGroupChat = 'N'")
     Optional<ChatRoom> findExistingPrivateRoom(@Param("myId") Long myId, @Param("chatMemberId") Long chatMemberId);
+
+    // 읽음 커서 이동 (뒤로 가지 않도록 더 큰 id일 때만 갱신)
+    @Modifying
+    @Query("UPDATE ChatParticipant cp SET cp.lastReadMessageId = :messageId WHERE cp.chatRoom.id = :roomId AND cp.member.id = :memberId AND cp.lastReadMessageId < :messageId")
+    int advanceReadCursor(@Param("roomId") Long roomId, @Param("memberId") Long memberId, @Param("messageId") Long messageId);
 }
@@ -4,7 +4,10 @@ import com.example.chatserver.chat.domain.ChatRoom;
 import com.example.chatserver.chat.domain.ReadStatus;
 import com.example.chatserver.member.domain.Member;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -13,4 +16,17 @@ public interface ReadStatusRepository extends JpaRepository<ReadStatus, Long> {
     List<ReadStatus> findByChatRoomAndMember(ChatRoom chatRoom, Member member);
     Long countByChatRoomAndMemberAndIsReadFalse(ChatRoom chatRoom, Member member);
 
+    // read_status 기반 읽음 정보를 chat_participant의 읽음 커서로 변환
+    // - 안읽은 메세지가 있으면 가장 오래된 안읽은 메세지 바로 앞, 없으면 읽은 메세지 중 마지막 메세지
+    // - 아직 커서가 없는(0) 참여자 중 read_status가 있는 참여자만 갱신 : 다시 실행해도 이미 옮겨진 커서는 그대로
+    //   (read_status가 없는 참여자를 방의 마지막 메세지로 옮기면 모두 읽음 처리되므로 제외)
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE chat_participant cp SET cp.last_read_message_id = COALESCE(" +
+            "(SELECT MIN(rs.chat_message_id) - 1 FROM read_status rs WHERE rs.chat_room_id = cp.chat_room_id AND rs.member_id = cp.member_id AND rs.is_read = false), " +
+            "(SELECT MAX(rs.chat_message_id) FROM read_status rs WHERE rs.chat_room_id = cp.chat_room_id AND rs.member_id = cp.member_id), " +
+            "0) " +
+            "WHERE cp.last_read_message_id = 0 " +
+            "AND EXISTS (SELECT 1 FROM read_status rs WHERE rs.chat_room_id = cp.chat_room_id AND rs.member_id = cp.member_id)", nativeQuery = true)
+    int migrateToReadCursor();
 }
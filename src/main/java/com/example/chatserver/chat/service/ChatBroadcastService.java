@@ -0,0 +1,65 @@
+package com.example.chatserver.chat.service;
+
+import com.example.chatserver.chat.dto.ChatMessageDto;
+import com.example.chatserver.common.configs.NodeIdentity;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.stereotype.Service;
+
+// 채팅 메세지 fan-out 진입점 : 한 번만 직렬화한 뒤 설정된 transport(redis pub/sub 또는 stream)로 발행
+// - pub/sub transport : 이 노드에 구독자가 있는 room이면 payload에 발행 노드 id(originNodeId)를 넣고, 이 노드의 구독자에게는
+//   redis를 거치지 않고 바로 전달 (redis에서 돌아온 자기 메세지는 RedisPubSubService가 버린다)
+//   구독자가 없는 room은 표시 없이 발행만 한다 (구독하지 않은 room의 최근 메세지 캐시에 쌓지 않는다)
+// - 바로 전달하면 room 전체의 단일 순서는 보장되지 않는다 : 각 노드에서 자기 노드 메세지가 먼저 발행된 다른 노드 메세지보다 앞설 수 있다
+// - chat.delivery.local-short-circuit=false 면 이전처럼 redis를 거쳐 이 노드에도 전달
+@Service
+public class ChatBroadcastService {
+
+    private final RedisPubSubService redisPubSubService;
+    private final RedisStreamService redisStreamService;
+    private final ChatDeliveryService chatDeliveryService;
+    private final RedisRoomSubscriptionService redisRoomSubscriptionService;
+    private final ChatMetrics chatMetrics;
+    private final String nodeId;
+
+    // 스프링이 설정한 공용 ObjectMapper로 만든 writer를 재사용 (메세지마다 ObjectMapper 생성x)
+    private final ObjectWriter chatMessageWriter;
+
+    public ChatBroadcastService(RedisPubSubService redisPubSubService, RedisStreamService redisStreamService, ChatDeliveryService chatDeliveryService, RedisRoomSubscriptionService redisRoomSubscriptionService, ChatMetrics chatMetrics, NodeIdentity nodeIdentity, ObjectMapper objectMapper) {
+        this.redisPubSubService = redisPubSubService;
+        this.redisStreamService = redisStreamService;
+        this.chatDeliveryService = chatDeliveryService;
+        this.redisRoomSubscriptionService = redisRoomSubscriptionService;
+        this.chatMetrics = chatMetrics;
+        this.nodeId = nodeIdentity.getNodeId();
+        this.chatMessageWriter = objectMapper.writerFor(ChatMessageDto.class);
+    }
+
+    public void broadcast(Long roomId, ChatMessageDto chatMessageDto) {
+        // stream transport는 stream id 순서대로 전달해야 하므로(재연결 시 이어받기) 항상 reader를 거친다
+        // 이 노드에 구독자가 없는 room은 바로 전달할 대상이 없으므로 redis로만 발행
+        boolean localShortCircuit = chatDeliveryService.isLocalShortCircuit() && !redisStreamService.isEnabled()
+                && redisRoomSubscriptionService.getLocalRoomIds().contains(roomId);
+        chatMessageDto.setOriginNodeId(localShortCircuit ? nodeId : null);
+        byte[] payload;
+        try {
+            payload = chatMessageWriter.writeValueAsBytes(chatMessageDto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("broadcast - 메세지 직렬화 실패", e);
+        }
+
+        if(localShortCircuit) {
+            chatDeliveryService.deliver(roomId, payload, null);
+        }
+
+        long start = System.nanoTime();
+        if(redisStreamService.isEnabled()) {
+            redisStreamService.append(roomId, payload);
+        } else {
+            redisPubSubService.publish(roomId, payload);
+        }
+        chatMetrics.recordPublish(start);
+    }
+
+}
@@ -0,0 +1,149 @@
+package com.example.chatserver.chat.service;
+
+import com.example.chatserver.chat.config.RoomSubscriptionRegistry;
+import com.example.chatserver.common.configs.NodeIdentity;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+
+// redis(pub/sub 또는 stream)에서 받은 메세지를 이 노드의 /topic/{roomId} 구독자에게 전달
+// payload(JSON byte[])는 다시 파싱하지 않고 그대로 STOMP broker로 넘긴다
+// 이 노드가 발행한 메세지는 발행 시 바로 전달하므로(ChatBroadcastService) redis에서 돌아온 echo는 isLocalOrigin()으로 걸러낸다
+@Service
+public class ChatDeliveryService {
+
+    // stream transport 사용 시 클라이언트가 재연결 후 이어받을 수 있도록 stream id를 STOMP 헤더로 전달
+    public static final String STREAM_ID_HEADER = "stream-id";
+
+    // 여러 메세지를 묶어 보낸 경우 메세지 수 (이 헤더가 있으면 body는 ChatMessageDto의 JSON 배열)
+    public static final String BATCH_SIZE_HEADER = "batch-size";
+
+    private final SimpMessageSendingOperations messageTemplate;
+    private final RecentMessageCache recentMessageCache;
+    private final ChatMetrics chatMetrics;
+
+    // 로컬 구독자 직접 전달 여부, 켜져 있으면 이 노드가 발행한 payload의 시작 부분 : {"originNodeId":"<nodeId>",
+    private final boolean localShortCircuit;
+    private final byte[] localOriginPrefix;
+
+    // 바쁜 room 전송 묶음 (chat.outbound.coalescing.enabled=true 일 때만)
+    private final RoomMessageCoalescer roomMessageCoalescer;
+
+    public ChatDeliveryService(SimpMessageSendingOperations messageTemplate,
+                               RecentMessageCache recentMessageCache,
+                               ChatMetrics chatMetrics,
+                               NodeIdentity nodeIdentity,
+                               ObjectMapper objectMapper,
+                               @Value("${chat.delivery.local-short-circuit:true}") boolean localShortCircuit,
+                               @Value("${chat.outbound.coalescing.enabled:false}") boolean coalescing,
+                               @Value("${chat.outbound.coalescing.rate-threshold:20}") int rateThreshold,
+                               @Value("${chat.outbound.coalescing.window-ms:15}") long windowMs,
+                               @Value("${chat.outbound.coalescing.max-bytes:65536}") int maxBytes) {
+        this.messageTemplate = messageTemplate;
+        this.recentMessageCache = recentMessageCache;
+        this.chatMetrics = chatMetrics;
+        this.localShortCircuit = localShortCircuit;
+        this.localOriginPrefix = localShortCircuit ? originPrefix(objectMapper, nodeIdentity.getNodeId()) : null;
+        this.roomMessageCoalescer = coalescing ? new RoomMessageCoalescer(this::sendToRoom, rateThreshold, windowMs, maxBytes) : null;
+    }
+
+    // 묶는 중인 메세지는 broker가 멈추기 전에 보내야 하므로 context 종료 시작 시점(lifecycle stop 이전)에 비운다
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        if(roomMessageCoalescer != null) {
+            roomMessageCoalescer.shutdown();
+        }
+    }
+
+    public void deliver(Long roomId, byte[] payload, String streamId) {
+        long start = System.nanoTime();
+        recentMessageCache.append(roomId, payload);
+        if(roomMessageCoalescer != null) {
+            roomMessageCoalescer.submit(roomId, payload, streamId);
+        } else {
+            sendToRoom(roomId, payload, streamId, 1);
+        }
+        chatMetrics.recordDeliver(roomId, payload, start);
+    }
+
+    public boolean isLocalShortCircuit() {
+        return localShortCircuit;
+    }
+
+    // 이 노드가 발행한 채팅 메세지인지 : payload를 파싱하지 않고 앞부분만 비교
+    public boolean isLocalOrigin(byte[] payload) {
+        if(localOriginPrefix == null || payload.length < localOriginPrefix.length) return false;
+        for(int i = 0; i < localOriginPrefix.length; i++) {
+            if(payload[i] != localOriginPrefix[i]) return false;
+        }
+        return true;
+    }
+
+    // 채팅 메세지 외의 room 이벤트(읽음 처리 등) 전달
+    public void send(String destination, byte[] payload) {
+        send(destination, null, payload, null, 1);
+    }
+
+    // 묶어 보낸 batch 수, 묶인 메세지 수
+    public long getCoalescedBatchCount() {
+        return roomMessageCoalescer == null ? 0 : roomMessageCoalescer.getBatchCount();
+    }
+
+    public long getCoalescedMessageCount() {
+        return roomMessageCoalescer == null ? 0 : roomMessageCoalescer.getBatchedMessageCount();
+    }
+
+    private void sendToRoom(Long roomId, byte[] payload, String streamId, int batchSize) {
+        send("/topic/" + roomId, roomId, payload, streamId, batchSize);
+    }
+
+    private void send(String destination, Long roomId, byte[] payload, String streamId, int batchSize) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        if(roomId != null) {
+            // broker 구독 registry가 destination을 파싱하지 않고 roomId로 바로 조회
+            accessor.setHeader(RoomSubscriptionRegistry.ROOM_ID_HEADER, roomId);
+        }
+        if(streamId != null) {
+            accessor.setNativeHeader(STREAM_ID_HEADER, streamId);
+        }
+        if(batchSize > 1) {
+            accessor.setNativeHeader(BATCH_SIZE_HEADER, Integer.toString(batchSize));
+        }
+        accessor.setLeaveMutable(true);
+        messageTemplate.send(destination, MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+    }
+
+    // ChatMessageDto 직렬화 결과의 시작 부분 (originNodeId가 첫 필드, 값은 같은 ObjectMapper로 escape)
+    private static byte[] originPrefix(ObjectMapper objectMapper, String nodeId) {
+        try {
+            return ("{\"originNodeId\":" + objectMapper.writeValueAsString(nodeId) + ",").getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("node id 직렬화 실패 : " + nodeId, e);
+        }
+    }
+
+    // redis 채널/stream key(prefix + roomId)에서 String 생성 없이 roomId 추출
+    static Long parseRoomId(byte[] name, int prefixLength) {
+        long roomId = 0;
+        for(int i = prefixLength; i < name.length; i++) {
+            int digit = name[i] - '0';
+            if(digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("잘못된 room 채널 이름 : " + new String(name, StandardCharsets.UTF_8));
+            }
+            roomId = roomId * 10 + digit;
+        }
+        return roomId;
+    }
+
+}
@@ -0,0 +1,259 @@
+package com.example.chatserver.chat.service;
+
+import com.example.chatserver.chat.dto.ChatMessageDto;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// write-behind 모드 : 메세지는 먼저 broadcast 하고, 저장은 큐에 쌓아 전용 writer 스레드가 JDBC batch로 처리
+// MySQL에서 multi-row insert로 보내려면 DB_URL에 rewriteBatchedStatements=true 옵션이 필요
+// - 이미 broadcast된 메세지이므로 저장 실패 시 버리지 않는다
+//   batch 실패 => 건별 저장, 제약 조건 위반(없는 room, 사용자 등)만 버리고 나머지는 backoff 후 다시 저장
+// - 종료 시 큐에 남은 메세지를 모두 저장한 뒤 writer 종료 (종료 이후의 submit은 false => 호출한 쪽에서 동기 저장)
+@Service
+public class ChatMessageWriteBehindService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatMessageWriteBehindService.class);
+
+    private static final String INSERT_MESSAGE_SQL =
+            "INSERT INTO chat_message (chat_room_id, member_id, content, created_time, update_time) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UnreadCounterService unreadCounterService;
+    private final ChatMetrics chatMetrics;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+    private final long retryBackoffMs;
+    private final long retryBackoffMaxMs;
+    private final int shutdownRetries;
+    private final BlockingQueue<PendingChatMessage> queue;
+
+    // submit(read lock)과 종료(write lock) 사이 : running 확인 후 큐에 넣기 전에 writer가 끝나 메세지가 큐에 남지 않도록
+    private final ReentrantReadWriteLock runningLock = new ReentrantReadWriteLock();
+    private volatile boolean running;
+    private Thread writer;
+
+    public ChatMessageWriteBehindService(JdbcTemplate jdbcTemplate,
+                                         TransactionTemplate transactionTemplate,
+                                         UnreadCounterService unreadCounterService,
+                                         ChatMetrics chatMetrics,
+                                         @Value("${chat.persistence.write-behind.enabled:false}") boolean enabled,
+                                         @Value("${chat.persistence.write-behind.batch-size:200}") int batchSize,
+                                         @Value("${chat.persistence.write-behind.flush-interval-ms:50}") long flushIntervalMs,
+                                         @Value("${chat.persistence.write-behind.queue-capacity:10000}") int queueCapacity,
+                                         @Value("${chat.persistence.write-behind.offer-timeout-ms:100}") long offerTimeoutMs,
+                                         @Value("${chat.persistence.write-behind.retry-backoff-ms:100}") long retryBackoffMs,
+                                         @Value("${chat.persistence.write-behind.retry-backoff-max-ms:5000}") long retryBackoffMaxMs,
+                                         @Value("${chat.persistence.write-behind.shutdown-retries:5}") int shutdownRetries) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.unreadCounterService = unreadCounterService;
+        this.chatMetrics = chatMetrics;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.retryBackoffMs = retryBackoffMs;
+        this.retryBackoffMaxMs = retryBackoffMaxMs;
+        this.shutdownRetries = shutdownRetries;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if(!enabled) return;
+        running = true;
+        writer = new Thread(this::drainLoop, "chat-write-behind");
+        writer.start();
+    }
+
+    // 종료 시 큐에 남은 메세지를 모두 저장한 뒤 writer 종료
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if(writer == null) return;
+        runningLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            runningLock.writeLock().unlock();
+        }
+        writer.interrupt();
+        writer.join();
+    }
+
+    // 큐에 넣지 못하면(비활성화 또는 큐가 가득 찬 상태로 timeout) false를 반환 => 호출한 쪽에서 동기 저장
+    public boolean submit(Long roomId, Long senderId, ChatMessageDto chatMessageReqDto) {
+        if(!running) return false;
+        LocalDateTime createdTime = chatMessageReqDto.getCreatedTime() == null ? LocalDateTime.now() : chatMessageReqDto.getCreatedTime();
+        PendingChatMessage pending = new PendingChatMessage(roomId, senderId, chatMessageReqDto.getMessage(), createdTime);
+        runningLock.readLock().lock();
+        try {
+            return running && queue.offer(pending, offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            runningLock.readLock().unlock();
+        }
+    }
+
+    public int queueSize() {
+        return queue.size();
+    }
+
+    private void drainLoop() {
+        List<PendingChatMessage> batch = new ArrayList<>(batchSize);
+        while(running || !queue.isEmpty()) {
+            try {
+                PendingChatMessage first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if(first == null) continue;
+                batch.add(first);
+
+                // batch size가 찰 때까지, 최대 flush interval 만큼만 더 모은다
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while(batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if(batch.size() >= batchSize || remaining <= 0) break;
+                    PendingChatMessage next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if(next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // 종료 요청 : 남은 메세지는 interrupt 없이 계속 비운다
+                queue.drainTo(batch, batchSize - batch.size());
+            }
+
+            if(!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingChatMessage> batch) {
+        try {
+            long start = System.nanoTime();
+            transactionTemplate.executeWithoutResult(status -> insertBatch(batch));
+            chatMetrics.recordSaveBatch(start);
+            incrementUnread(batch);
+            return;
+        } catch (RuntimeException e) {
+            log.warn("write-behind batch 저장 실패({}건), 건별 저장으로 재시도", batch.size(), e);
+        }
+
+        // 건별 저장 : 제약 조건 위반은 다시 시도해도 실패하므로 버리고, 그 외(DB 연결 끊김 등)는 backoff 후 다시 시도
+        List<PendingChatMessage> pending = new ArrayList<>(batch);
+        long backoffMs = retryBackoffMs;
+        for(int attempt = 0; ; attempt++) {
+            List<PendingChatMessage> saved = new ArrayList<>(pending.size());
+            List<PendingChatMessage> failed = new ArrayList<>();
+            for(PendingChatMessage p : pending) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insertBatch(List.of(p)));
+                    saved.add(p);
+                } catch (DataIntegrityViolationException e) {
+                    log.error("write-behind 메세지 저장 실패(버림) roomId={}, senderId={}, createdTime={}", p.roomId(), p.senderId(), p.createdTime(), e);
+                } catch (RuntimeException e) {
+                    failed.add(p);
+                }
+            }
+            incrementUnread(saved);
+            if(failed.isEmpty()) return;
+
+            // 종료 중에는 shutdown-retries 만큼만 다시 시도
+            if(!running && attempt >= shutdownRetries) {
+                for(PendingChatMessage p : failed) {
+                    log.error("write-behind 메세지 저장 실패(종료) roomId={}, senderId={}, createdTime={}, content={}", p.roomId(), p.senderId(), p.createdTime(), p.content());
+                }
+                return;
+            }
+            log.warn("write-behind 메세지 저장 실패({}건), {}ms 후 다시 시도", failed.size(), backoffMs);
+            sleepQuietly(backoffMs);
+            backoffMs = Math.min(backoffMs * 2, retryBackoffMaxMs);
+            pending = failed;
+        }
+    }
+
+    // 커밋된 메세지의 안읽은 메세지 카운터 증가 (room별로 모아서 pipeline 1회씩)
+    // 카운터 갱신 실패는 저장 실패가 아니므로 재저장하지 않는다 (TTL 후 DB 기준으로 보정)
+    private void incrementUnread(List<PendingChatMessage> saved) {
+        if(saved.isEmpty()) return;
+        try {
+            // roomId -> (senderId -> 메세지 수)
+            Map<Long, Map<Long, Integer>> sentCounts = new HashMap<>();
+            for(PendingChatMessage p : saved) {
+                sentCounts.computeIfAbsent(p.roomId(), id -> new HashMap<>()).merge(p.senderId(), 1, Integer::sum);
+            }
+            sentCounts.forEach(unreadCounterService::increment);
+        } catch (RuntimeException e) {
+            log.warn("write-behind 안읽은 메세지 카운터 갱신 실패({}건)", saved.size(), e);
+        }
+    }
+
+    // 종료 요청(interrupt) 중에도 backoff는 지킨다
+    private static void sleepQuietly(long millis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        boolean interrupted = false;
+        long remaining;
+        while((remaining = deadline - System.nanoTime()) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if(interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void insertBatch(List<PendingChatMessage> batch) {
+        // 메세지 저장 (읽음 여부는 읽음 커서로 관리하므로 메세지 insert만 하면 된다)
+        jdbcTemplate.batchUpdate(INSERT_MESSAGE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                PendingChatMessage p = batch.get(i);
+                Timestamp createdTime = Timestamp.valueOf(p.createdTime());
+                ps.setLong(1, p.roomId());
+                ps.setLong(2, p.senderId());
+                ps.setString(3, p.content());
+                ps.setTimestamp(4, createdTime);
+                ps.setTimestamp(5, createdTime);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        });
+    }
+
+    private record PendingChatMessage(Long roomId, Long senderId, String content, LocalDateTime createdTime) {
+    }
+
+}
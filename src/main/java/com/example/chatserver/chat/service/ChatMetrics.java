@@ -0,0 +1,246 @@
+package com.example.chatserver.chat.service;
+
+import com.example.chatserver.chat.config.RoomOrderedExecutor;
+import com.example.chatserver.chat.config.SlowConsumerHandlerDecoratorFactory;
+import com.example.chatserver.member.service.MemberCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+// 메세지 처리 단계별 지연과 큐/버퍼 상태 (Micrometer, /actuator/prometheus 로 노출)
+// - chat.stomp.receive   : SEND 프레임 처리 전체 (저장 + 발행)
+// - chat.message.save    : DB 저장 (동기 저장 1건, write-behind는 batch 1회)
+// - chat.redis.publish   : redis 발행 (pub/sub 또는 stream)
+// - chat.message.deliver : redis에서 받은 메세지를 이 노드의 구독자에게 전달
+// - chat.message.e2e     : 서버가 SEND를 받은 시각(payload의 sentAt) ~ 각 노드에서 전달한 시각 (노드 간 시계 차이만큼 오차)
+// room별 전달 속도(chat.room.messages.rate)는 집계 구간(room-window-ms)마다 메세지가 많았던 상위 max-room-tags개 room만
+// room 태그로 내보내고 나머지는 room=other로 합친다 (구간마다 상위 room을 다시 골라 한동안 조용한 room은 태그에서 빠진다)
+@Component
+public class ChatMetrics implements SmartInitializingSingleton {
+
+    private static final byte[] SENT_AT_FIELD = "\"sentAt\":".getBytes(StandardCharsets.UTF_8);
+    private static final String OTHER_ROOMS = "other";
+
+    private final MeterRegistry meterRegistry;
+    private final int maxRoomTags;
+
+    private final Timer receiveTimer;
+    private final Timer saveTimer;
+    private final Timer saveBatchTimer;
+    private final Timer publishTimer;
+    private final Timer deliverTimer;
+    private final Timer endToEndTimer;
+    private final Counter deliveredCounter;
+
+    // 현재 집계 구간의 roomId -> 전달 수 (구간이 끝나면 새 map으로 교체)
+    private volatile Map<Long, LongAdder> roomWindow = new ConcurrentHashMap<>();
+    private volatile long roomWindowStartNanos = System.nanoTime();
+    private final MultiGauge roomRates;
+
+    private final ObjectProvider<RoomOrderedExecutor> roomOrderedExecutor;
+    private final ObjectProvider<ChatMessageWriteBehindService> writeBehindService;
+    private final ObjectProvider<SlowConsumerHandlerDecoratorFactory> slowConsumerFactory;
+    private final ObjectProvider<PresenceService> presenceService;
+    private final ObjectProvider<RedisRoomSubscriptionService> redisRoomSubscriptionService;
+    private final ObjectProvider<ChatDeliveryService> chatDeliveryService;
+    private final ObjectProvider<RecentMessageCache> recentMessageCache;
+    private final ObjectProvider<MemberCache> memberCache;
+
+    // 게이지 대상 빈은 이 빈을 주입받는 쪽이므로 ObjectProvider로 받아 모든 빈이 만들어진 뒤 등록
+    public ChatMetrics(MeterRegistry meterRegistry,
+                       @Value("${chat.metrics.max-room-tags:100}") int maxRoomTags,
+                       ObjectProvider<RoomOrderedExecutor> roomOrderedExecutor,
+                       ObjectProvider<ChatMessageWriteBehindService> writeBehindService,
+                       ObjectProvider<SlowConsumerHandlerDecoratorFactory> slowConsumerFactory,
+                       ObjectProvider<PresenceService> presenceService,
+                       ObjectProvider<RedisRoomSubscriptionService> redisRoomSubscriptionService,
+                       ObjectProvider<ChatDeliveryService> chatDeliveryService,
+                       ObjectProvider<RecentMessageCache> recentMessageCache,
+                       ObjectProvider<MemberCache> memberCache) {
+        this.meterRegistry = meterRegistry;
+        this.maxRoomTags = maxRoomTags;
+        this.roomOrderedExecutor = roomOrderedExecutor;
+        this.writeBehindService = writeBehindService;
+        this.slowConsumerFactory = slowConsumerFactory;
+        this.presenceService = presenceService;
+        this.redisRoomSubscriptionService = redisRoomSubscriptionService;
+        this.chatDeliveryService = chatDeliveryService;
+        this.recentMessageCache = recentMessageCache;
+        this.memberCache = memberCache;
+
+        this.receiveTimer = latencyTimer("chat.stomp.receive", "SEND 프레임 처리 시간");
+        this.saveTimer = latencyTimer("chat.message.save", "메세지 DB 저장 시간");
+        this.saveBatchTimer = latencyTimer("chat.message.save.batch", "write-behind batch 저장 시간");
+        this.publishTimer = latencyTimer("chat.redis.publish", "redis 발행 시간");
+        this.deliverTimer = latencyTimer("chat.message.deliver", "redis 수신 메세지를 구독자에게 전달하는 시간");
+        this.endToEndTimer = latencyTimer("chat.message.e2e", "SEND 수신부터 각 노드 전달까지");
+        this.deliveredCounter = Counter.builder("chat.redis.received")
+                .description("redis에서 받은 채팅 메세지 수")
+                .register(meterRegistry);
+        this.roomRates = MultiGauge.builder("chat.room.messages.rate")
+                .description("room별 초당 전달 메세지 수 (직전 집계 구간, 상위 room만 room 태그)")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        RoomOrderedExecutor executor = roomOrderedExecutor.getIfAvailable();
+        if(executor != null) {
+            for(int i = 0; i < executor.getLaneCount(); i++) {
+                int lane = i;
+                String laneTag = Integer.toString(i);
+                Gauge.builder("chat.inbound.lane.queued", executor, e -> e.getQueueSize(lane))
+                        .tag("lane", laneTag)
+                        .register(meterRegistry);
+                FunctionCounter.builder("chat.inbound.lane.rejected", executor, e -> e.getRejectedCount(lane))
+                        .tag("lane", laneTag)
+                        .register(meterRegistry);
+            }
+        }
+
+        gauge("chat.persistence.write-behind.queued", writeBehindService, ChatMessageWriteBehindService::queueSize);
+        gauge("chat.outbound.buffered.bytes", slowConsumerFactory, SlowConsumerHandlerDecoratorFactory::getTotalBufferedBytes);
+        functionCounter("chat.outbound.slow-consumer.disconnects", slowConsumerFactory, SlowConsumerHandlerDecoratorFactory::getDisconnectCount);
+        gauge("chat.sessions", presenceService, PresenceService::getLocalSessionCount);
+        gauge("chat.redis.subscribed.rooms", redisRoomSubscriptionService, s -> s.getLocalRoomIds().size());
+        functionCounter("chat.outbound.coalesced.batches", chatDeliveryService, ChatDeliveryService::getCoalescedBatchCount);
+        functionCounter("chat.outbound.coalesced.messages", chatDeliveryService, ChatDeliveryService::getCoalescedMessageCount);
+
+        RecentMessageCache recent = recentMessageCache.getIfAvailable();
+        if(recent != null) {
+            cacheCounters("recent-messages", recent, RecentMessageCache::getHitCount, RecentMessageCache::getMissCount);
+        }
+        MemberCache members = memberCache.getIfAvailable();
+        if(members != null) {
+            cacheCounters("member-email", members, m -> m.emailStats().hitCount(), m -> m.emailStats().missCount());
+            cacheCounters("member-id", members, m -> m.idStats().hitCount(), m -> m.idStats().missCount());
+        }
+    }
+
+    public void recordReceive(long startNanos) {
+        receiveTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSave(long startNanos) {
+        saveTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSaveBatch(long startNanos) {
+        saveBatchTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPublish(long startNanos) {
+        publishTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // 이 노드 구독자에게 메세지 1건 전달 (로컬 발행 또는 redis 수신) : 전달 시간, room별 메세지 수, payload의 sentAt 기준 end-to-end 지연
+    public void recordDeliver(Long roomId, byte[] payload, long startNanos) {
+        deliverTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        deliveredCounter.increment();
+        roomWindow.computeIfAbsent(roomId, id -> new LongAdder()).increment();
+
+        long sentAt = sentAtOf(payload);
+        if(sentAt > 0) {
+            // 다른 노드에서 받은 시각이 더 늦게 찍힌 경우(시계 차이)는 0으로
+            endToEndTimer.record(Math.max(0, System.currentTimeMillis() - sentAt), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // 집계 구간을 닫고 상위 maxRoomTags개 room의 전달 속도로 gauge를 교체 (빠진 room의 gauge는 제거)
+    // 교체 직전에 이전 map에 더해진 몇 건은 버려질 수 있다 (속도 지표이므로 허용)
+    @Scheduled(fixedDelayString = "${chat.metrics.room-window-ms:60000}", initialDelayString = "${chat.metrics.room-window-ms:60000}")
+    public void rollRoomWindow() {
+        Map<Long, LongAdder> window = roomWindow;
+        roomWindow = new ConcurrentHashMap<>();
+        long now = System.nanoTime();
+        double seconds = Math.max(1, now - roomWindowStartNanos) / 1_000_000_000.0;
+        roomWindowStartNanos = now;
+
+        List<Map.Entry<Long, Long>> counts = new ArrayList<>(window.size());
+        window.forEach((roomId, count) -> counts.add(Map.entry(roomId, count.sum())));
+        counts.sort(Map.Entry.<Long, Long>comparingByValue(Comparator.reverseOrder()));
+
+        List<MultiGauge.Row<?>> rows = new ArrayList<>(Math.min(counts.size(), maxRoomTags) + 1);
+        long others = 0;
+        for(int i = 0; i < counts.size(); i++) {
+            Map.Entry<Long, Long> entry = counts.get(i);
+            if(i < maxRoomTags) {
+                rows.add(MultiGauge.Row.of(Tags.of("room", entry.getKey().toString()), entry.getValue() / seconds));
+            } else {
+                others += entry.getValue();
+            }
+        }
+        rows.add(MultiGauge.Row.of(Tags.of("room", OTHER_ROOMS), others / seconds));
+        roomRates.register(rows, true);
+    }
+
+    private Timer latencyTimer(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry);
+    }
+
+    private <T> void gauge(String name, ObjectProvider<T> provider, ToDoubleFunction<T> value) {
+        T target = provider.getIfAvailable();
+        if(target != null) {
+            Gauge.builder(name, target, value).register(meterRegistry);
+        }
+    }
+
+    private <T> void functionCounter(String name, ObjectProvider<T> provider, ToDoubleFunction<T> value) {
+        T target = provider.getIfAvailable();
+        if(target != null) {
+            FunctionCounter.builder(name, target, value).register(meterRegistry);
+        }
+    }
+
+    private <T> void cacheCounters(String cache, T target, ToDoubleFunction<T> hits, ToDoubleFunction<T> misses) {
+        FunctionCounter.builder("chat.cache.gets", target, hits).tag("cache", cache).tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("chat.cache.gets", target, misses).tag("cache", cache).tag("result", "miss").register(meterRegistry);
+    }
+
+    // payload에서 "sentAt":<숫자> 를 파싱하지 않고 찾는다 (메세지 본문 안의 따옴표는 escape 되므로 key로만 매칭), 없으면 -1
+    static long sentAtOf(byte[] payload) {
+        int last = payload.length - SENT_AT_FIELD.length;
+        outer:
+        for(int i = 0; i <= last; i++) {
+            for(int j = 0; j < SENT_AT_FIELD.length; j++) {
+                if(payload[i + j] != SENT_AT_FIELD[j]) continue outer;
+            }
+            long value = 0;
+            int k = i + SENT_AT_FIELD.length;
+            int start = k;
+            for(; k < payload.length; k++) {
+                int digit = payload[k] - '0';
+                if(digit < 0 || digit > 9) break;
+                value = value * 10 + digit;
+            }
+            return k == start ? -1 : value;
+        }
+        return -1;
+    }
+
+}
@@ -3,50 +3,78 @@ package com.example.chatserver.chat.service;
 import com.example.chatserver.chat.domain.ChatMessage;
 import com.example.chatserver.chat.domain.ChatParticipant;
 import com.example.chatserver.chat.domain.ChatRoom;
-import com.example.chatserver.chat.domain.ReadStatus;
+import com.example.chatserver.chat.dto.ChatHistoryResDto;
 import com.example.chatserver.chat.dto.ChatMessageDto;
 import com.example.chatserver.chat.dto.ChatRoomListResDTO;
 import com.example.chatserver.chat.dto.MyChatListResDto;
+import com.example.chatserver.chat.dto.PresenceDto;
+import com.example.chatserver.chat.dto.ReadReceiptDto;
 import com.example.chatserver.chat.repository.ChatMessageRepository;
 import com.example.chatserver.chat.repository.ChatParticipantRepository;
 import com.example.chatserver.chat.repository.ChatRoomRepository;
-import com.example.chatserver.chat.repository.ReadStatusRepository;
 import com.example.chatserver.member.domain.Member;
 import com.example.chatserver.member.repository.MemberRepository;
+import com.example.chatserver.member.service.MemberCache;
+import com.example.chatserver.member.service.MemberCache.CachedMember;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 @Transactional
 public class ChatService {
 
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     private final ChatRoomRepository chatRoomRepository;
     private final ChatParticipantRepository chatParticipantRepository;
     private final ChatMessageRepository chatMessageRepository;
-    private final ReadStatusRepository readStatusRepository;
     private final MemberRepository memberRepository;
-
-    public ChatService(ChatRoomRepository chatRoomRepository, ChatParticipantRepository chatParticipantRepository, ChatMessageRepository chatMessageRepository, ReadStatusRepository readStatusRepository, MemberRepository memberRepository) {
+    private final RecentMessageCache recentMessageCache;
+    private final RoomMembershipCache roomMembershipCache;
+    private final MemberCache memberCache;
+    private final UnreadCounterService unreadCounterService;
+    private final ReadReceiptService readReceiptService;
+    private final PresenceService presenceService;
+
+    public ChatService(ChatRoomRepository chatRoomRepository, ChatParticipantRepository chatParticipantRepository, ChatMessageRepository chatMessageRepository, MemberRepository memberRepository, RecentMessageCache recentMessageCache, RoomMembershipCache roomMembershipCache, MemberCache memberCache, UnreadCounterService unreadCounterService, ReadReceiptService readReceiptService, PresenceService presenceService) {
         this.chatRoomRepository = chatRoomRepository;
         this.chatParticipantRepository = chatParticipantRepository;
         this.chatMessageRepository = chatMessageRepository;
-        this.readStatusRepository = readStatusRepository;
         this.memberRepository = memberRepository;
+        this.recentMessageCache = recentMessageCache;
+        this.roomMembershipCache = roomMembershipCache;
+        this.memberCache = memberCache;
+        this.unreadCounterService = unreadCounterService;
+        this.readReceiptService = readReceiptService;
+        this.presenceService = presenceService;
+    }
+
+    // 로그인한 사용자 : member near-cache에서 조회하고, 엔티티는 DB 조회 없이 참조(proxy)만 사용
+    private Member currentMember(String caller) {
+        return memberRepository.getReferenceById(currentCachedMember(caller).id());
+    }
+
+    private CachedMember currentCachedMember(String caller) {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        return memberCache.findByEmail(email).orElseThrow(() -> new EntityNotFoundException(caller + " - 사용자를 찾을 수 없습니다."));
     }
 
-    public void saveMessage(Long roomId, ChatMessageDto chatMessageReqDto) {
+    public ChatMessage saveMessage(Long roomId, Long senderId, ChatMessageDto chatMessageReqDto) {
         // 채팅방 조회
         ChatRoom chatRoom = chatRoomRepository.findById(roomId).orElseThrow(() -> new EntityNotFoundException("saveMessage - room을 찾을 수 없습니다."));
 
-        // 보낸이 조회
-        Member sender = memberRepository.findByEmail(chatMessageReqDto.getSenderEmail()).orElseThrow(() -> new EntityNotFoundException("saveMessage - 사용자를 찾을 수 없습니다."));
-        
+        // 보낸이는 STOMP CONNECT 시 인증된 사용자이므로 조회 없이 참조만 사용
+        Member sender = memberRepository.getReferenceById(senderId);
+
         // 메세지 저장
         ChatMessage chatMessage = ChatMessage.builder()
                 .chatRoom(chatRoom)
@@ -56,19 +84,10 @@ public class ChatService {
 
         chatMessageRepository.save(chatMessage);
 
-        // 읽음 여부 저장(사용자별로) - 메세지를 보낸이는 보내자마자 읽음으로써 보낸이를 제외하고 채팅방의 읽은 이의 수를 count한다.
-        List<ChatParticipant> chatParticipants = chatParticipantRepository.findByChatRoom(chatRoom);
-
-        for(ChatParticipant c : chatParticipants) {
-            ReadStatus readStatus = ReadStatus.builder()
-                    .chatRoom(chatRoom)
-                    .member(c.getMember())
-                    .chatMessage(chatMessage)
-                    .isRead(c.getMember().equals(sender))
-                    .build();
-            readStatusRepository.save(readStatus);
-        }
-
+        // 읽음 여부는 참여자별 읽음 커서(ChatParticipant.lastReadMessageId)로 관리하므로 메세지마다 따로 저장하지 않는다.
+        // 보낸이의 메세지는 안읽은 메세지 count에서 제외된다.
+        unreadCounterService.onMessageSaved(roomId, senderId);
+        return chatMessage;
     }
 
     public void createGroupRoom(String chatRoomName) {
@@ -81,15 +100,10 @@ public class ChatService {
 
         // 채팅 참여자로 개설자를 추가
         // 방 생성자의 정보
-        Member roomCreater = memberRepository.findByEmail(SecurityContextHolder.getContext().getAuthentication().getName()).orElseThrow(() -> new EntityNotFoundException("createGroupRoom - 사용자를 찾을 수 없습니다."));
+        Member roomCreater = currentMember("createGroupRoom");
 
         // 개설자 추가
-        ChatParticipant chatParticipant = ChatParticipant.builder()
-                .chatRoom(chatRoom)
-                .member(roomCreater)
-                .build();
-
-        chatParticipantRepository.save(chatParticipant);
+        addParticipant(chatRoom, roomCreater);
     }
 
     public List<ChatRoomListResDTO> getGroupchatRoom() {
@@ -113,7 +127,7 @@ public class ChatService {
         ChatRoom chatRoom = chatRoomRepository.findById(roomId).orElseThrow(()-> new EntityNotFoundException("addParticipantToGroupChat - room을 찾을 수 없습니다."));
 
         // member 조회
-        Member currentMember = memberRepository.findByEmail(SecurityContextHolder.getContext().getAuthentication().getName()).orElseThrow(() -> new EntityNotFoundException("addParticipantToGroupChat - 사용자를 찾을 수 없습니다."));
+        Member currentMember = currentMember("addParticipantToGroupChat");
 
         // 1:1 채팅방인지 Group 채팅방인지 검증
         if(chatRoom.getIsGroupChat().equals("N")) {
@@ -130,93 +144,132 @@ public class ChatService {
 
     // ChatParticipant 생성 후 참여자로 저장 (채팅 참여시 참여자가 아니라면 사용)
     public void addParticipant(ChatRoom chatRoom, Member member){
+        // 참여 이전의 메세지는 안읽은 메세지로 보지 않도록 읽음 커서를 방의 마지막 메세지로 설정
         ChatParticipant chatParticipant = ChatParticipant.builder()
                 .chatRoom(chatRoom)
                 .member(member)
+                .lastReadMessageId(chatMessageRepository.findLastMessageId(chatRoom.getId()))
                 .build();
 
         chatParticipantRepository.save(chatParticipant);
+        roomMembershipCache.onMembershipChanged(chatRoom.getId());
     }
 
-    public List<ChatMessageDto> getChatHistory(Long roomId) {
-        // 해당 채팅방의 참여자인지 확인
-        // - 채팅방 조회
-        ChatRoom chatRoom = chatRoomRepository.findById(roomId).orElseThrow(()-> new EntityNotFoundException("getChatHistory - room을 찾을 수 없습니다."));
-
-        // - member 조회
-        Member currentMember = memberRepository.findByEmail(SecurityContextHolder.getContext().getAuthentication().getName()).orElseThrow(() -> new EntityNotFoundException("getChatHistory - 사용자를 찾을 수 없습니다."));
-    
-        // - 채팅방 참여자 List
-        List<ChatParticipant> chatParticipants = chatParticipantRepository.findByChatRoom(chatRoom);
+    // before(messageId)보다 이전 메세지를 최신순으로 limit건 조회 (keyset 페이징), before가 없으면 가장 최근 페이지
+    public ChatHistoryResDto getChatHistory(Long roomId, Long before, int limit) {
+        // 해당 채팅방의 참여자인지 확인 (참여자 인덱스)
+        if(!isRoomPaticipant(currentCachedMember("getChatHistory").id(), roomId)) {
+            throw new IllegalArgumentException("getChatHistory - 해당 채팅방에 참여한 사용자가 아닙니다.");
+        }
 
-        // - 현재 사용자가 채팅방 참여자인지 확인
-        boolean check = false;
+        int pageSize = Math.max(1, Math.min(limit, MAX_HISTORY_PAGE_SIZE));
 
-        for(ChatParticipant c : chatParticipants) {
-            if(c.getMember().equals(currentMember)){
-                check = true;
+        // 가장 최근 페이지는 최근 메세지 캐시에서 먼저 찾는다
+        if(before == null) {
+            List<ChatMessageDto> cached = recentMessageCache.getLatest(roomId, pageSize);
+            if(cached != null) {
+                return ChatHistoryResDto.builder()
+                        .messages(cached)
+                        .nextCursor(cached.get(0).getMessageId())
+                        .build();
             }
         }
 
-        if(!check)throw new IllegalArgumentException("getChatHistory - 해당 채팅방에 참여한 사용자가 아닙니다.");
-
-        // 특정 room에 대한 message 조회
-        List<ChatMessage> chatMessages = chatMessageRepository.findByChatRoomOrderByCreatedTimeAsc(chatRoom);
+        // 특정 room에 대한 message 조회 - (chat_room_id, id) 인덱스를 타고, 보낸이는 fetch join으로 함께 조회
+        List<ChatMessage> chatMessages = chatMessageRepository.findPageBefore(roomId, before == null ? Long.MAX_VALUE : before, PageRequest.of(0, pageSize));
 
         List<ChatMessageDto> chatMessageDtos = new ArrayList<>();
 
         for(ChatMessage c : chatMessages) {
             ChatMessageDto chatMessageDto = ChatMessageDto.builder()
+                    .roomId(roomId)
+                    .messageId(c.getId())
                     .message(c.getContent())
                     .senderEmail(c.getMember().getEmail())
+                    .createdTime(c.getCreatedTime())
                     .build();
 
             chatMessageDtos.add(chatMessageDto);
         }
 
-        return chatMessageDtos;
+        // 페이지 안에서는 기존처럼 오래된 메세지부터 반환
+        Collections.reverse(chatMessageDtos);
+
+        // 페이지가 꽉 찼으면 가장 오래된 메세지 id가 다음 페이지 커서
+        Long nextCursor = chatMessageDtos.size() == pageSize ? chatMessageDtos.get(0).getMessageId() : null;
+
+        return ChatHistoryResDto.builder()
+                .messages(chatMessageDtos)
+                .nextCursor(nextCursor)
+                .build();
     }
 
     public boolean isRoomPaticipant(String email, Long roomId) {
-        // - 채팅방 조회
-        ChatRoom chatRoom = chatRoomRepository.findById(roomId).orElseThrow(()-> new EntityNotFoundException("isRoomPaticipant - room을 찾을 수 없습니다."));
+        // - member 조회
+        CachedMember currentMember = memberCache.findByEmail(email).orElseThrow(() -> new EntityNotFoundException("isRoomPaticipant - 사용자를 찾을 수 없습니다."));
+
+        return isRoomPaticipant(currentMember.id(), roomId);
+    }
 
+    public boolean isRoomPaticipant(Long memberId, Long roomId) {
+        // - 참여자 인덱스에서 확인 (참여자 목록 전체를 DB에서 읽지 않는다)
+        return roomMembershipCache.isMember(roomId, memberId);
+    }
+
+    // 읽음 처리 : 읽지 않은 메세지 수와 관계없이 읽음 커서 UPDATE 1회, 커서가 이동했으면 room에 읽음 이벤트 발행
+    public ReadReceiptDto messageRead(Long roomId) {
         // - member 조회
-        Member currentMember = memberRepository.findByEmail(email).orElseThrow(() -> new EntityNotFoundException("isRoomPaticipant - 사용자를 찾을 수 없습니다."));
+        CachedMember currentMember = currentCachedMember("messageRead");
 
-        List<ChatParticipant> chatParticipants = chatParticipantRepository.findByChatRoom(chatRoom);
-        for(ChatParticipant c : chatParticipants) {
-            if(c.getMember().equals(currentMember)){
-                return true;
-            }
+        // - 참여자 확인 (참여자 인덱스)
+        if(!isRoomPaticipant(currentMember.id(), roomId)) {
+            throw new IllegalArgumentException("messageRead - 해당 채팅방에 참여한 사용자가 아닙니다.");
         }
 
-        return false;
-    }
+        // 읽음 커서를 방의 마지막 메세지로 이동 (UPDATE 1회)
+        Long lastMessageId = chatMessageRepository.findLastMessageId(roomId);
+        int updated = chatParticipantRepository.advanceReadCursor(roomId, currentMember.id(), lastMessageId);
+        unreadCounterService.onRead(currentMember.id(), roomId);
 
-    public void messageRead(Long roomId) {
-        // - 채팅방 조회
-        ChatRoom chatRoom = chatRoomRepository.findById(roomId).orElseThrow(()-> new EntityNotFoundException("messageRead - room을 찾을 수 없습니다."));
+        ReadReceiptDto readReceiptDto = ReadReceiptDto.builder()
+                .roomId(roomId)
+                .readerEmail(currentMember.email())
+                .lastReadMessageId(lastMessageId)
+                .updated(updated)
+                .build();
 
-        // - member 조회
-        Member currentMember = memberRepository.findByEmail(SecurityContextHolder.getContext().getAuthentication().getName()).orElseThrow(() -> new EntityNotFoundException("messageRead - 사용자를 찾을 수 없습니다."));
+        if(updated > 0) {
+            readReceiptService.publish(readReceiptDto);
+        }
+        return readReceiptDto;
+    }
 
-        List<ReadStatus> readStatuses = readStatusRepository.findByChatRoomAndMember(chatRoom, currentMember);
-        for(ReadStatus r : readStatuses) {
-            r.updateIsRead(true);
+    // room 접속자 수 (참여자만 조회 가능)
+    public PresenceDto getRoomPresence(Long roomId) {
+        if(!isRoomPaticipant(currentCachedMember("getRoomPresence").id(), roomId)) {
+            throw new IllegalArgumentException("getRoomPresence - 해당 채팅방에 참여한 사용자가 아닙니다.");
         }
+        return new PresenceDto(roomId, presenceService.getOnlineCount(roomId));
     }
 
     public List<MyChatListResDto> getMyChatRooms(){
         // - member 조회
-        Member currentMember = memberRepository.findByEmail(SecurityContextHolder.getContext().getAuthentication().getName()).orElseThrow(() -> new EntityNotFoundException("getMyChatRooms - 사용자를 찾을 수 없습니다."));
+        Member currentMember = currentMember("getMyChatRooms");
+
+        // 참여 room은 fetch join으로 한 번에 조회
+        List<ChatParticipant> chatParticipants = chatParticipantRepository.findAllWithRoomByMemberId(currentMember.getId());
 
-        List<ChatParticipant> chatParticipants = chatParticipantRepository.findAllByMember(currentMember);
+        // 안읽은 메세지 수는 redis 카운터에서 한 번에 조회 (없으면 group by 쿼리 1회)
+        List<Long> roomIds = new ArrayList<>();
+        for(ChatParticipant c : chatParticipants) {
+            roomIds.add(c.getChatRoom().getId());
+        }
+        Map<Long, Long> unreadCounts = unreadCounterService.getCounts(currentMember.getId(), roomIds);
 
         List<MyChatListResDto> chatListResDtos = new ArrayList<>();
 
         for(ChatParticipant c : chatParticipants) {
-            Long count = readStatusRepository.countByChatRoomAndMemberAndIsReadFalse(c.getChatRoom(), currentMember);
+            Long count = unreadCounts.getOrDefault(c.getChatRoom().getId(), 0L);
 
             MyChatListResDto dto = MyChatListResDto.builder()
                     .roomId(c.getChatRoom().getId())
@@ -236,7 +289,7 @@ public class ChatService {
         ChatRoom chatRoom = chatRoomRepository.findById(roomId).orElseThrow(()-> new EntityNotFoundException("leaveGroupChatRoom - room을 찾을 수 없습니다."));
 
         // - member 조회
-        Member currentMember = memberRepository.findByEmail(SecurityContextHolder.getContext().getAuthentication().getName()).orElseThrow(() -> new EntityNotFoundException("leaveGroupChatRoom - 사용자를 찾을 수 없습니다."));
+        Member currentMember = currentMember("leaveGroupChatRoom");
 
         if(chatRoom.getIsGroupChat().equals("N")) {
             throw new IllegalArgumentException("단체 채팅방이 아닙니다.");
@@ -245,6 +298,8 @@ public class ChatService {
         ChatParticipant c = chatParticipantRepository.findByChatRoomAndMember(chatRoom, currentMember).orElseThrow(() -> new EntityNotFoundException("leaveGroupChatRoom - 참여자 정보를 찾을 수 없습니다."));
 
         chatParticipantRepository.delete(c);
+        roomMembershipCache.onMembershipChanged(chatRoom.getId());
+        unreadCounterService.onLeft(currentMember.getId(), chatRoom.getId());
 
         // 참여자가 0인 채팅방은 채팅방도 삭제
         List<ChatParticipant> chatParticipants = chatParticipantRepository.findByChatRoom(chatRoom);
@@ -255,13 +310,13 @@ public class ChatService {
 
     public Long getOrCreatePrivateRoom(Long chatMemberId) {
         // 로그인한 사용자
-        Member currentMember = memberRepository.findByEmail(SecurityContextHolder.getContext().getAuthentication().getName()).orElseThrow(() -> new EntityNotFoundException("getOrCreatePrivateRoom - 사용자를 찾을 수 없습니다."));
+        CachedMember currentMember = currentCachedMember("getOrCreatePrivateRoom");
 
         // 채팅 상대방
-        Member chatMember = memberRepository.findById(chatMemberId).orElseThrow(() -> new EntityNotFoundException("getOrCreatePrivateRoom - 사용자(채팅 상대방)를 찾을 수 없습니다."));
+        CachedMember chatMember = memberCache.findById(chatMemberId).orElseThrow(() -> new EntityNotFoundException("getOrCreatePrivateRoom - 사용자(채팅 상대방)를 찾을 수 없습니다."));
 
         // 1:1 채팅방 여부 확인 후 있다면 해당 roomId return
-        Optional<ChatRoom> chatRoom = chatParticipantRepository.findExistingPrivateRoom(currentMember.getId(), chatMemberId);
+        Optional<ChatRoom> chatRoom = chatParticipantRepository.findExistingPrivateRoom(currentMember.id(), chatMemberId);
         if(chatRoom.isPresent()) {
             return chatRoom.get().getId();
         }
@@ -269,14 +324,14 @@ public class ChatService {
         // 1:1 채팅방이 없으면 새로 방 생성 후 마지막에 roomId return
         ChatRoom newRoom = ChatRoom.builder()
                 .isGroupChat("N")
-                .name("Private Chating Room : " + currentMember.getName() +", " + chatMember.getName())
+                .name("Private Chating Room : " + currentMember.name() +", " + chatMember.name())
                 .build();
         
         chatRoomRepository.save(newRoom);
 
         // member, chatMember 참여자로 추가
-        addParticipant(newRoom, currentMember);
-        addParticipant(newRoom, chatMember);
+        addParticipant(newRoom, memberRepository.getReferenceById(currentMember.id()));
+        addParticipant(newRoom, memberRepository.getReferenceById(chatMember.id()));
 
         return newRoom.getId();
     }
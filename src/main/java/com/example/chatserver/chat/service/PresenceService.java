@@ -0,0 +1,403 @@
+package com.example.chatserver.chat.service;
+
+import com.example.chatserver.chat.dto.PresenceDto;
+import com.example.chatserver.common.configs.NodeIdentity;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// room별 접속자(presence)
+// - 세션 -> member 매핑과 room별 접속 member는 노드 로컬에서 관리하고, 바뀐 room만 flush 주기마다 pipeline 1회로 redis에 반영
+//   hash chat:presence:room:{roomId} (field = nodeId, value = 이 노드에서 room을 구독 중인 member 수)
+//   set  chat:presence:rooms:{nodeId} (이 노드가 field를 쓴 room, 노드 정리용)
+// - heartbeat은 세션 단위가 아니라 노드 단위 : chat:presence:alive:{nodeId} 를 TTL과 함께 갱신
+//   정상 종료 없이 죽은 노드는 alive 키가 만료되고, 다른 노드의 heartbeat에서 그 노드의 field를 정리
+//   정리 전이라도 집계 시 살아있는 노드의 field만 더하므로 죽은 노드의 접속자는 TTL 이내에 빠진다
+//   이 노드의 alive 키가 만료됐거나(GC 멈춤, redis 장애 등) 노드 목록에서 빠져 있었으면 다른 노드가 field를 지웠을 수 있으므로
+//   로컬 집계의 모든 room을 다시 반영한다
+// - 접속자가 바뀐 room은 redis 채널(chat:presence)로 알리고, 각 노드는 room당 event-interval-ms에 한 번만 /topic/{roomId}/presence 로 전송
+@Service
+public class PresenceService implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(PresenceService.class);
+
+    public static final String PRESENCE_CHANNEL = "chat:presence";
+
+    private static final byte[] PRESENCE_CHANNEL_BYTES = PRESENCE_CHANNEL.getBytes(StandardCharsets.UTF_8);
+    private static final String NODES_KEY = "chat:presence:nodes";
+    private static final String ALIVE_KEY_PREFIX = "chat:presence:alive:";
+    private static final String NODE_ROOMS_KEY_PREFIX = "chat:presence:rooms:";
+    private static final String ROOM_KEY_PREFIX = "chat:presence:room:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final ChatDeliveryService chatDeliveryService;
+    private final ObjectWriter presenceWriter;
+    private final String nodeId;
+    private final long aliveTtlSeconds;
+    private final long eventIntervalMs;
+
+    // sessionId -> 세션 정보
+    private final Map<String, SessionPresence> sessions = new ConcurrentHashMap<>();
+
+    // roomId -> (memberId -> 이 노드의 구독 수)
+    private final Map<Long, Map<Long, Integer>> roomMembers = new ConcurrentHashMap<>();
+
+    // 다음 flush에 redis로 반영할 room
+    private final Set<Long> dirtyRooms = ConcurrentHashMap.newKeySet();
+
+    // presence 이벤트 전송 대기 room, room별 마지막 전송 시각
+    private final Set<Long> pendingEvents = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Long> lastEventAt = new ConcurrentHashMap<>();
+
+    // 마지막 heartbeat 기준 살아있는 노드
+    private volatile Set<String> aliveNodes;
+    private volatile boolean registered;
+
+    public PresenceService(StringRedisTemplate stringRedisTemplate,
+                           RedisMessageListenerContainer redisMessageListenerContainer,
+                           ChatDeliveryService chatDeliveryService,
+                           ObjectMapper objectMapper,
+                           NodeIdentity nodeIdentity,
+                           @Value("${chat.presence.alive-ttl-seconds:30}") long aliveTtlSeconds,
+                           @Value("${chat.presence.event-interval-ms:2000}") long eventIntervalMs) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisMessageListenerContainer = redisMessageListenerContainer;
+        this.chatDeliveryService = chatDeliveryService;
+        this.presenceWriter = objectMapper.writerFor(PresenceDto.class);
+        this.nodeId = nodeIdentity.getNodeId();
+        this.aliveTtlSeconds = aliveTtlSeconds;
+        this.eventIntervalMs = eventIntervalMs;
+        this.aliveNodes = Set.of(nodeId);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(PRESENCE_CHANNEL));
+    }
+
+    // 정상 종료 시 이 노드의 접속자를 바로 제거
+    @PreDestroy
+    public void shutdown() {
+        try {
+            removeNode(nodeId);
+            stringRedisTemplate.delete(ALIVE_KEY_PREFIX + nodeId);
+        } catch (RuntimeException e) {
+            log.warn("presence 노드 정리 실패 nodeId={}", nodeId, e);
+        }
+    }
+
+    public void connected(String sessionId, Long memberId) {
+        sessions.putIfAbsent(sessionId, new SessionPresence(memberId));
+    }
+
+    public void subscribed(String sessionId, String subscriptionId, Long roomId) {
+        SessionPresence session = sessions.get(sessionId);
+        if(session == null) return;
+        Long previous = session.subscriptions.put(subscriptionId, roomId);
+        if(previous != null) {
+            leave(previous, session.memberId);
+        }
+        join(roomId, session.memberId);
+        // 구독 처리 중에 세션이 끊긴 경우 disconnected()가 이 구독을 보지 못했을 수 있다
+        if(sessions.get(sessionId) != session && session.subscriptions.remove(subscriptionId, roomId)) {
+            leave(roomId, session.memberId);
+        }
+    }
+
+    public void unsubscribed(String sessionId, String subscriptionId) {
+        SessionPresence session = sessions.get(sessionId);
+        if(session == null) return;
+        Long roomId = session.subscriptions.remove(subscriptionId);
+        if(roomId != null) {
+            leave(roomId, session.memberId);
+        }
+    }
+
+    // DISCONNECT는 중복으로 올 수 있으므로 세션 정보를 먼저 제거한 쪽만 처리
+    public void disconnected(String sessionId) {
+        SessionPresence session = sessions.remove(sessionId);
+        if(session == null) return;
+        for(String subscriptionId : session.subscriptions.keySet()) {
+            Long roomId = session.subscriptions.remove(subscriptionId);
+            if(roomId != null) {
+                leave(roomId, session.memberId);
+            }
+        }
+    }
+
+    public int getLocalSessionCount() {
+        return sessions.size();
+    }
+
+    public long getOnlineCount(Long roomId) {
+        return getOnlineCounts(List.of(roomId)).get(roomId);
+    }
+
+    // 살아있는 다른 노드의 field 합 + 이 노드의 로컬 집계 (flush 전 변경도 반영)
+    @SuppressWarnings("unchecked")
+    public Map<Long, Long> getOnlineCounts(List<Long> roomIds) {
+        List<Object> hashes = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for(Long roomId : roomIds) {
+                connection.hashCommands().hGetAll(bytes(roomKey(roomId)));
+            }
+            return null;
+        });
+
+        Set<String> alive = aliveNodes;
+        Map<Long, Long> counts = new HashMap<>();
+        for(int i = 0; i < roomIds.size(); i++) {
+            Long roomId = roomIds.get(i);
+            Map<Long, Integer> local = roomMembers.get(roomId);
+            long online = local == null ? 0 : local.size();
+            for(Map.Entry<String, String> e : ((Map<String, String>) hashes.get(i)).entrySet()) {
+                if(!nodeId.equals(e.getKey()) && alive.contains(e.getKey())) {
+                    online += Long.parseLong(e.getValue());
+                }
+            }
+            counts.put(roomId, online);
+        }
+        return counts;
+    }
+
+    // 바뀐 room의 이 노드 접속자 수를 redis에 반영 (room이 몇 개든 pipeline 1회)
+    @Scheduled(fixedDelayString = "${chat.presence.flush-interval-ms:1000}")
+    public void flush() {
+        List<Long> rooms = drain(dirtyRooms);
+        if(!rooms.isEmpty()) {
+            try {
+                writeLocalCounts(rooms);
+            } catch (RuntimeException e) {
+                // 다음 flush에 다시 반영
+                dirtyRooms.addAll(rooms);
+                log.warn("presence flush 실패 rooms={}", rooms.size(), e);
+                return;
+            }
+        }
+        try {
+            sendPendingEvents();
+        } catch (RuntimeException e) {
+            log.warn("presence 이벤트 전송 실패", e);
+        }
+    }
+
+    // 노드 단위 heartbeat + 죽은 노드 정리
+    @Scheduled(fixedDelayString = "${chat.presence.heartbeat-interval-ms:10000}")
+    public void heartbeat() {
+        try {
+            if(!registered) {
+                // 같은 node-id로 재기동한 경우 이전 실행의 field를 먼저 지운다
+                removeNode(nodeId);
+                registered = true;
+            }
+            byte[] aliveKey = bytes(ALIVE_KEY_PREFIX + nodeId);
+            List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.keyCommands().exists(aliveKey);
+                connection.stringCommands().setEx(aliveKey, aliveTtlSeconds, bytes("1"));
+                connection.setCommands().sAdd(bytes(NODES_KEY), bytes(nodeId));
+                return null;
+            });
+            // removeNode는 field를 지운 뒤 노드 목록에서 빼므로, 목록에 새로 추가됐다면 그 전의 정리는 모두 끝난 상태
+            boolean aliveKeyExisted = Boolean.TRUE.equals(results.get(0));
+            boolean readded = Long.valueOf(1).equals(results.get(2));
+            if(!aliveKeyExisted || readded) {
+                if(!roomMembers.isEmpty()) {
+                    log.info("presence alive 키 만료 또는 노드 정리 감지, 접속자 재반영 nodeId={} rooms={}", nodeId, roomMembers.size());
+                }
+                dirtyRooms.addAll(roomMembers.keySet());
+            }
+
+            List<String> nodes = new ArrayList<>(stringRedisTemplate.opsForSet().members(NODES_KEY));
+            List<Object> exists = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for(String node : nodes) {
+                    connection.keyCommands().exists(bytes(ALIVE_KEY_PREFIX + node));
+                }
+                return null;
+            });
+
+            Set<String> alive = new HashSet<>();
+            alive.add(nodeId);
+            for(int i = 0; i < nodes.size(); i++) {
+                String node = nodes.get(i);
+                if(Boolean.TRUE.equals(exists.get(i))) {
+                    alive.add(node);
+                } else if(!nodeId.equals(node)) {
+                    log.info("응답 없는 노드의 presence 정리 nodeId={}", node);
+                    removeNode(node);
+                }
+            }
+            aliveNodes = Set.copyOf(alive);
+        } catch (RuntimeException e) {
+            log.warn("presence heartbeat 실패 nodeId={}", nodeId, e);
+        }
+    }
+
+    // 접속자가 바뀐 room 목록("1,2,3") 수신 => 이 노드에 구독자가 있는 room만 이벤트 대기
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        for(String value : body.split(",")) {
+            try {
+                Long roomId = Long.parseLong(value);
+                if(roomMembers.containsKey(roomId)) {
+                    pendingEvents.add(roomId);
+                }
+            } catch (NumberFormatException e) {
+                log.warn("presence 이벤트 파싱 실패 : {}", value);
+            }
+        }
+    }
+
+    private void join(Long roomId, Long memberId) {
+        roomMembers.compute(roomId, (id, members) -> {
+            if(members == null) members = new ConcurrentHashMap<>();
+            if(members.merge(memberId, 1, Integer::sum) == 1) {
+                dirtyRooms.add(roomId);
+            }
+            return members;
+        });
+    }
+
+    private void leave(Long roomId, Long memberId) {
+        roomMembers.computeIfPresent(roomId, (id, members) -> {
+            Integer count = members.get(memberId);
+            if(count == null) return members;
+            if(count == 1) {
+                members.remove(memberId);
+                dirtyRooms.add(roomId);
+            } else {
+                members.put(memberId, count - 1);
+            }
+            if(members.isEmpty()) {
+                lastEventAt.remove(roomId);
+                return null;
+            }
+            return members;
+        });
+    }
+
+    private void writeLocalCounts(List<Long> rooms) {
+        byte[] nodeField = bytes(nodeId);
+        byte[] nodeRoomsKey = bytes(NODE_ROOMS_KEY_PREFIX + nodeId);
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for(Long roomId : rooms) {
+                Map<Long, Integer> local = roomMembers.get(roomId);
+                int count = local == null ? 0 : local.size();
+                if(count > 0) {
+                    connection.hashCommands().hSet(bytes(roomKey(roomId)), nodeField, bytes(Integer.toString(count)));
+                    connection.setCommands().sAdd(nodeRoomsKey, bytes(roomId.toString()));
+                } else {
+                    connection.hashCommands().hDel(bytes(roomKey(roomId)), nodeField);
+                    connection.setCommands().sRem(nodeRoomsKey, bytes(roomId.toString()));
+                }
+            }
+            connection.publish(PRESENCE_CHANNEL_BYTES, bytes(join(rooms)));
+            return null;
+        });
+    }
+
+    // room당 event-interval-ms에 한 번, 전송할 room의 접속자 수는 pipeline 1회로 조회
+    private void sendPendingEvents() {
+        if(pendingEvents.isEmpty()) return;
+        long now = System.currentTimeMillis();
+        List<Long> due = new ArrayList<>();
+        for(Iterator<Long> it = pendingEvents.iterator(); it.hasNext(); ) {
+            Long roomId = it.next();
+            if(!roomMembers.containsKey(roomId)) {
+                it.remove();
+            } else if(now - lastEventAt.getOrDefault(roomId, 0L) >= eventIntervalMs) {
+                it.remove();
+                due.add(roomId);
+            }
+        }
+        if(due.isEmpty()) return;
+
+        Map<Long, Long> counts = getOnlineCounts(due);
+        for(Long roomId : due) {
+            lastEventAt.put(roomId, now);
+            try {
+                byte[] payload = presenceWriter.writeValueAsBytes(new PresenceDto(roomId, counts.get(roomId)));
+                chatDeliveryService.send("/topic/" + roomId + "/presence", payload);
+            } catch (JsonProcessingException e) {
+                log.warn("presence 이벤트 직렬화 실패 roomId={}", roomId, e);
+            }
+        }
+    }
+
+    // 노드가 쓴 field를 모두 지우고 노드 목록에서 제거 (여러 노드가 동시에 정리해도 결과는 같다)
+    private void removeNode(String node) {
+        Set<String> rooms = stringRedisTemplate.opsForSet().members(NODE_ROOMS_KEY_PREFIX + node);
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            if(rooms != null && !rooms.isEmpty()) {
+                for(String roomId : rooms) {
+                    connection.hashCommands().hDel(bytes(ROOM_KEY_PREFIX + roomId), bytes(node));
+                }
+                connection.publish(PRESENCE_CHANNEL_BYTES, bytes(String.join(",", rooms)));
+            }
+            connection.keyCommands().del(bytes(NODE_ROOMS_KEY_PREFIX + node));
+            connection.setCommands().sRem(bytes(NODES_KEY), bytes(node));
+            return null;
+        });
+    }
+
+    // set에서 꺼내면서 제거 : 꺼낸 뒤 다시 추가된 room은 다음 flush 대상
+    private static List<Long> drain(Set<Long> dirty) {
+        List<Long> drained = new ArrayList<>();
+        for(Iterator<Long> it = dirty.iterator(); it.hasNext(); ) {
+            drained.add(it.next());
+            it.remove();
+        }
+        return drained;
+    }
+
+    private static String join(List<Long> roomIds) {
+        StringBuilder sb = new StringBuilder();
+        for(Long roomId : roomIds) {
+            if(sb.length() > 0) sb.append(',');
+            sb.append(roomId);
+        }
+        return sb.toString();
+    }
+
+    private static String roomKey(Long roomId) {
+        return ROOM_KEY_PREFIX + roomId;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static final class SessionPresence {
+        private final Long memberId;
+        // subscriptionId -> roomId
+        private final Map<String, Long> subscriptions = new ConcurrentHashMap<>();
+
+        private SessionPresence(Long memberId) {
+            this.memberId = memberId;
+        }
+    }
+
+}
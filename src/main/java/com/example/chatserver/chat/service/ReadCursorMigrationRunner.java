@@ -0,0 +1,32 @@
+package com.example.chatserver.chat.service;
+
+import com.example.chatserver.chat.repository.ReadStatusRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// 기존 read_status 데이터를 참여자별 읽음 커서로 1회 변환 (chat.read-cursor.migrate-on-startup=true 일 때만 실행)
+// ddl-auto가 create면 기동 시 테이블이 새로 만들어지므로 update/validate 환경에서 사용
+// 커서가 아직 없는 참여자만 갱신하므로 설정을 켜둔 채 재기동해도 읽음 커서가 되돌아가지 않는다
+@Component
+@ConditionalOnProperty(name = "chat.read-cursor.migrate-on-startup", havingValue = "true")
+public class ReadCursorMigrationRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadCursorMigrationRunner.class);
+
+    private final ReadStatusRepository readStatusRepository;
+
+    public ReadCursorMigrationRunner(ReadStatusRepository readStatusRepository) {
+        this.readStatusRepository = readStatusRepository;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int updated = readStatusRepository.migrateToReadCursor();
+        log.info("read_status => 읽음 커서 변환 완료 : {}명의 참여자 갱신", updated);
+    }
+
+}
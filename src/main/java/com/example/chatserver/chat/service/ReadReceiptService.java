@@ -0,0 +1,79 @@
+package com.example.chatserver.chat.service;
+
+import com.example.chatserver.chat.dto.ReadReceiptDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+
+// 읽음 처리 이벤트 : room별 redis 채널(chat:read:{roomId})로 발행하고 /topic/{roomId}/read 로 전달
+// 채널 구독은 RedisRoomSubscriptionService가 /topic/{roomId}/read 로컬 구독 수 0 <-> 1 일 때 등록/해제 (채팅 채널과 따로 센다)
+// => 읽음 이벤트 구독자가 없는 노드는 그 room의 읽음 이벤트를 받지 않는다
+@Service
+public class ReadReceiptService implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadReceiptService.class);
+
+    public static final String READ_CHANNEL_PREFIX = "chat:read:";
+
+    private static final int READ_CHANNEL_PREFIX_LENGTH = READ_CHANNEL_PREFIX.length();
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ChatDeliveryService chatDeliveryService;
+    private final ObjectWriter readReceiptWriter;
+
+    public ReadReceiptService(StringRedisTemplate stringRedisTemplate,
+                              ChatDeliveryService chatDeliveryService,
+                              ObjectMapper objectMapper) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.chatDeliveryService = chatDeliveryService;
+        this.readReceiptWriter = objectMapper.writerFor(ReadReceiptDto.class);
+    }
+
+    public static String readChannel(Long roomId) {
+        return READ_CHANNEL_PREFIX + roomId;
+    }
+
+    // 트랜잭션 안이면 커밋 이후에 발행 (커서 이동이 확정된 뒤 알림)
+    public void publish(ReadReceiptDto readReceiptDto) {
+        if(TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(readReceiptDto);
+                }
+            });
+        } else {
+            send(readReceiptDto);
+        }
+    }
+
+    // roomId는 채널 이름에서 꺼내고 body는 다시 파싱하지 않고 그대로 전달
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Long roomId = ChatDeliveryService.parseRoomId(message.getChannel(), READ_CHANNEL_PREFIX_LENGTH);
+        chatDeliveryService.send("/topic/" + roomId + "/read", message.getBody());
+    }
+
+    private void send(ReadReceiptDto readReceiptDto) {
+        try {
+            byte[] payload = readReceiptWriter.writeValueAsBytes(readReceiptDto);
+            byte[] channel = readChannel(readReceiptDto.getRoomId()).getBytes(StandardCharsets.UTF_8);
+            stringRedisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, payload));
+        } catch (JsonProcessingException | RuntimeException e) {
+            // 읽음 처리 자체는 완료되었으므로 알림 실패는 로그만 남긴다
+            log.warn("읽음 이벤트 발행 실패 roomId={}", readReceiptDto.getRoomId(), e);
+        }
+    }
+
+}
@@ -0,0 +1,162 @@
+package com.example.chatserver.chat.service;
+
+import com.example.chatserver.chat.dto.ChatMessageDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 활성 room의 최근 메세지 N개를 보관하는 room별 ring buffer
+// - 이 노드로 broadcast되는 메세지(JSON byte[])를 그대로 쌓아 두고, 이전 메세지 첫 페이지 조회 시 DB 대신 사용
+// - 전체 메모리는 max-rooms * capacity-per-room 으로 제한하고, 초과 시 가장 오래 사용되지 않은 room부터 제거(LRU)
+// - 로컬 구독이 끊긴 room은 그 사이 메세지를 받지 못하므로 RedisRoomSubscriptionService가 evict
+// - 구독 중(open ~ evict)인 room에만 쌓는다 : evict 이후 늦게 도착한 전달이 중간이 빠진 buffer를 다시 만들지 않도록
+@Service
+public class RecentMessageCache {
+
+    private final boolean enabled;
+    private final int capacityPerRoom;
+    private final ObjectReader chatMessageReader;
+
+    // access-order LinkedHashMap으로 LRU 구현 (rooms 자체를 lock으로 사용)
+    private final LinkedHashMap<Long, RoomBuffer> rooms;
+
+    // 이 노드가 구독 중인 room (rooms와 같은 lock)
+    private final Set<Long> openRooms = new HashSet<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public RecentMessageCache(ObjectMapper objectMapper,
+                              @Value("${chat.recent-cache.enabled:true}") boolean enabled,
+                              @Value("${chat.recent-cache.capacity-per-room:50}") int capacityPerRoom,
+                              @Value("${chat.recent-cache.max-rooms:1000}") int maxRooms) {
+        this.enabled = enabled;
+        this.capacityPerRoom = capacityPerRoom;
+        this.chatMessageReader = objectMapper.readerFor(ChatMessageDto.class);
+        this.rooms = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, RoomBuffer> eldest) {
+                return size() > maxRooms;
+            }
+        };
+    }
+
+    // room 구독 시작 (RedisRoomSubscriptionService에서 redis 구독 전에 호출)
+    public void open(Long roomId) {
+        if(!enabled) return;
+        synchronized (rooms) {
+            openRooms.add(roomId);
+        }
+    }
+
+    public void append(Long roomId, byte[] payload) {
+        if(!enabled) return;
+        RoomBuffer buffer;
+        synchronized (rooms) {
+            if(!openRooms.contains(roomId)) return;
+            buffer = rooms.computeIfAbsent(roomId, id -> new RoomBuffer(capacityPerRoom));
+            // evict와 겹치지 않도록 lock 안에서 추가
+            buffer.add(payload);
+        }
+    }
+
+    public void evict(Long roomId) {
+        synchronized (rooms) {
+            openRooms.remove(roomId);
+            rooms.remove(roomId);
+        }
+    }
+
+    // 최근 limit건을 오래된 순으로 반환, 캐시로 한 페이지를 채울 수 없으면 null (=> DB 조회)
+    public List<ChatMessageDto> getLatest(Long roomId, int limit) {
+        if(!enabled || limit > capacityPerRoom) {
+            return null;
+        }
+
+        RoomBuffer buffer;
+        synchronized (rooms) {
+            buffer = rooms.get(roomId);
+        }
+        byte[][] payloads = buffer == null ? null : buffer.latest(limit);
+        if(payloads == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        List<ChatMessageDto> chatMessageDtos = new ArrayList<>(payloads.length);
+        for(byte[] payload : payloads) {
+            ChatMessageDto chatMessageDto;
+            try {
+                chatMessageDto = chatMessageReader.readValue(payload);
+            } catch (IOException e) {
+                misses.incrementAndGet();
+                return null;
+            }
+            // 아직 저장되지 않은(write-behind) 메세지는 id가 없어 페이징 커서를 만들 수 없으므로 DB 조회
+            if(chatMessageDto.getMessageId() == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            chatMessageDtos.add(chatMessageDto);
+        }
+
+        // 노드마다 redis 수신 순서가 저장 순서와 다를 수 있으므로 id 순으로 정렬
+        chatMessageDtos.sort(Comparator.comparing(ChatMessageDto::getMessageId));
+        hits.incrementAndGet();
+        return chatMessageDtos;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public int getRoomCount() {
+        synchronized (rooms) {
+            return rooms.size();
+        }
+    }
+
+    private static final class RoomBuffer {
+        private final byte[][] ring;
+        private int next;
+        private int size;
+
+        private RoomBuffer(int capacity) {
+            this.ring = new byte[capacity][];
+        }
+
+        private synchronized void add(byte[] payload) {
+            ring[next] = payload;
+            next = (next + 1) % ring.length;
+            if(size < ring.length) size++;
+        }
+
+        // 최근 limit건(오래된 순), 보관 중인 메세지가 limit보다 적으면 null
+        private synchronized byte[][] latest(int limit) {
+            if(size < limit) return null;
+            byte[][] result = new byte[limit][];
+            int start = next - limit;
+            if(start < 0) start += ring.length;
+            for(int i = 0; i < limit; i++) {
+                result[i] = ring[(start + i) % ring.length];
+            }
+            return result;
+        }
+    }
+
+}
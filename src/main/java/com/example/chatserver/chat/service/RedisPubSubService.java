@@ -1,40 +1,48 @@
 package com.example.chatserver.chat.service;
 
-import com.example.chatserver.chat.dto.ChatMessageDto;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.data.redis.connection.Message;
 import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.messaging.simp.SimpMessageSendingOperations;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+
 @Service
 public class RedisPubSubService implements MessageListener {
 
+    // room별 redis 채널 : chat:{roomId}
+    public static final String ROOM_CHANNEL_PREFIX = "chat:";
+
+    private static final int ROOM_CHANNEL_PREFIX_LENGTH = ROOM_CHANNEL_PREFIX.length();
+
     private final StringRedisTemplate stringRedisTemplate;
-    private final SimpMessageSendingOperations messageTemplate;
+    private final ChatDeliveryService chatDeliveryService;
 
-    public RedisPubSubService(StringRedisTemplate stringRedisTemplate, SimpMessageSendingOperations messageTemplate) {
+    public RedisPubSubService(StringRedisTemplate stringRedisTemplate, ChatDeliveryService chatDeliveryService) {
         this.stringRedisTemplate = stringRedisTemplate;
-        this.messageTemplate = messageTemplate;
+        this.chatDeliveryService = chatDeliveryService;
+    }
+
+    public static String roomChannel(Long roomId) {
+        return ROOM_CHANNEL_PREFIX + roomId;
     }
 
-    public void pulish(String channel, String message) {
-        stringRedisTemplate.convertAndSend(channel,message);
+    // 이미 직렬화된 payload를 그대로 PUBLISH
+    public void publish(Long roomId, byte[] payload) {
+        byte[] channel = roomChannel(roomId).getBytes(StandardCharsets.UTF_8);
+        stringRedisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, payload));
     }
 
     // pattern에는 topic의 이름의 패턴이 담겨져있고, 이 패턴을 기반으로 다이나믹한 코딩 가능
+    // roomId는 채널 이름(chat:{roomId})에서 꺼내고, body는 다시 파싱하지 않고 그대로 /topic/{roomId}로 전달
+    // 이 노드가 발행한 메세지(echo)는 발행할 때 이미 전달했으므로 버린다
     @Override
     public void onMessage(Message message, byte[] pattern) {
-        String payload = new String(message.getBody());
-        ObjectMapper om = new ObjectMapper();
-        try {
-            ChatMessageDto chatMessageDto = om.readValue(payload, ChatMessageDto.class);
-            messageTemplate.convertAndSend("/topic/" + chatMessageDto.getRoomId(), chatMessageDto);
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException(e);
-        }
+        byte[] body = message.getBody();
+        if(chatDeliveryService.isLocalOrigin(body)) return;
+        Long roomId = ChatDeliveryService.parseRoomId(message.getChannel(), ROOM_CHANNEL_PREFIX_LENGTH);
+        chatDeliveryService.deliver(roomId, body, null);
     }
 
 }
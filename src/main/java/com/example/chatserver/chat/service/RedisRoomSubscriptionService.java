@@ -0,0 +1,189 @@
+package com.example.chatserver.chat.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 이 노드에 구독자가 있는 room의 redis 채널만 구독
+// STOMP SUBSCRIBE/UNSUBSCRIBE/DISCONNECT 기준으로 채널별 구독 수를 세고, 0 <-> 1 이 될 때 redis SUBSCRIBE/UNSUBSCRIBE
+// - /topic/{roomId}      => 채팅 채널(chat:{roomId}), stream transport에서는 RedisStreamService의 읽기 대상에 추가/제거
+// - /topic/{roomId}/read => 읽음 이벤트 채널(chat:read:{roomId}), transport와 관계없이 따로 센다
+// - 그 외(/topic/{roomId}/presence 등)는 redis 구독을 늘리지 않는다 (읽음/접속자만 보는 client가 채팅 메세지를 받아오지 않도록)
+@Service
+public class RedisRoomSubscriptionService {
+
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final RedisPubSubService redisPubSubService;
+    private final ReadReceiptService readReceiptService;
+    private final RecentMessageCache recentMessageCache;
+    // RedisStreamService가 ChatService => ... => 이 서비스를 참조하므로 지연 조회
+    private final ObjectProvider<RedisStreamService> redisStreamService;
+    private final boolean pubSubTransport;
+
+    // roomId -> 이 노드의 채팅 채널 STOMP 구독 수
+    private final Map<Long, RoomRef> chatRefs = new ConcurrentHashMap<>();
+    // roomId -> 이 노드의 읽음 채널 STOMP 구독 수
+    private final Map<Long, RoomRef> readRefs = new ConcurrentHashMap<>();
+
+    // sessionId -> (subscriptionId -> 구독 채널)
+    private final Map<String, Map<String, RoomChannel>> sessionSubscriptions = new ConcurrentHashMap<>();
+
+    public RedisRoomSubscriptionService(RedisMessageListenerContainer redisMessageListenerContainer,
+                                        RedisPubSubService redisPubSubService,
+                                        ReadReceiptService readReceiptService,
+                                        RecentMessageCache recentMessageCache,
+                                        ObjectProvider<RedisStreamService> redisStreamService,
+                                        @Value("${chat.transport:pubsub}") String transport) {
+        this.redisMessageListenerContainer = redisMessageListenerContainer;
+        this.redisPubSubService = redisPubSubService;
+        this.readReceiptService = readReceiptService;
+        this.recentMessageCache = recentMessageCache;
+        this.redisStreamService = redisStreamService;
+        this.pubSubTransport = !"stream".equalsIgnoreCase(transport);
+    }
+
+    public void subscribe(String sessionId, String subscriptionId, String destination) {
+        RoomChannel channel = channelOf(destination);
+        Map<String, RoomChannel> subscriptions = sessionSubscriptions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>());
+        RoomChannel previous = channel == null ? subscriptions.remove(subscriptionId) : subscriptions.put(subscriptionId, channel);
+        if(previous != null) {
+            // 같은 subscription id로 다시 구독한 경우 이전 채널은 해제
+            release(previous);
+        }
+        if(channel == null) return;
+        try {
+            retain(channel);
+        } catch (RuntimeException e) {
+            subscriptions.remove(subscriptionId, channel);
+            throw e;
+        }
+    }
+
+    public void unsubscribe(String sessionId, String subscriptionId) {
+        Map<String, RoomChannel> subscriptions = sessionSubscriptions.get(sessionId);
+        if(subscriptions == null) return;
+        RoomChannel channel = subscriptions.remove(subscriptionId);
+        if(channel != null) {
+            release(channel);
+        }
+    }
+
+    // DISCONNECT는 중복으로 올 수 있으므로 세션 정보를 먼저 제거한 쪽만 해제
+    public void unsubscribeAll(String sessionId) {
+        Map<String, RoomChannel> subscriptions = sessionSubscriptions.remove(sessionId);
+        if(subscriptions == null) return;
+        for(RoomChannel channel : subscriptions.values()) {
+            release(channel);
+        }
+    }
+
+    // 채팅 채널(/topic/{roomId})을 구독 중인 room
+    public Set<Long> getLocalRoomIds() {
+        return chatRefs.keySet();
+    }
+
+    // /topic/{roomId} => 채팅, /topic/{roomId}/read => 읽음, 그 외는 null
+    static RoomChannel channelOf(String destination) {
+        String[] parts = destination.split("/");
+        if(parts.length == 3) {
+            return new RoomChannel(Long.parseLong(parts[2]), ChannelKind.CHAT);
+        }
+        if(parts.length == 4 && "read".equals(parts[3])) {
+            return new RoomChannel(Long.parseLong(parts[2]), ChannelKind.READ);
+        }
+        return null;
+    }
+
+    // redis SUBSCRIBE/UNSUBSCRIBE는 room별 lock 안에서 처리 (map의 bin lock을 잡은 채 I/O 하지 않는다)
+    // 같은 room의 0 -> 1, 1 -> 0 전환은 순서대로 처리되고 다른 room은 기다리지 않는다
+    private void retain(RoomChannel channel) {
+        Map<Long, RoomRef> refs = refsOf(channel.kind());
+        while(true) {
+            RoomRef ref = refs.computeIfAbsent(channel.roomId(), id -> new RoomRef());
+            synchronized (ref) {
+                // 해제되어 map에서 빠진 객체면 새로 만든다
+                if(ref.released) continue;
+                if(ref.count == 0) {
+                    try {
+                        open(channel);
+                    } catch (RuntimeException e) {
+                        ref.released = true;
+                        refs.remove(channel.roomId(), ref);
+                        throw e;
+                    }
+                }
+                ref.count++;
+                return;
+            }
+        }
+    }
+
+    private void release(RoomChannel channel) {
+        Map<Long, RoomRef> refs = refsOf(channel.kind());
+        RoomRef ref = refs.get(channel.roomId());
+        if(ref == null) return;
+        synchronized (ref) {
+            if(ref.released || --ref.count > 0) return;
+            ref.released = true;
+            refs.remove(channel.roomId(), ref);
+            close(channel);
+        }
+    }
+
+    private Map<Long, RoomRef> refsOf(ChannelKind kind) {
+        return kind == ChannelKind.CHAT ? chatRefs : readRefs;
+    }
+
+    private void open(RoomChannel channel) {
+        Long roomId = channel.roomId();
+        if(channel.kind() == ChannelKind.READ) {
+            redisMessageListenerContainer.addMessageListener(readReceiptService, new ChannelTopic(ReadReceiptService.readChannel(roomId)));
+            return;
+        }
+        recentMessageCache.open(roomId);
+        try {
+            if(pubSubTransport) {
+                redisMessageListenerContainer.addMessageListener(redisPubSubService, new ChannelTopic(RedisPubSubService.roomChannel(roomId)));
+            } else {
+                redisStreamService.getObject().track(roomId);
+            }
+        } catch (RuntimeException e) {
+            recentMessageCache.evict(roomId);
+            throw e;
+        }
+    }
+
+    private void close(RoomChannel channel) {
+        Long roomId = channel.roomId();
+        if(channel.kind() == ChannelKind.READ) {
+            redisMessageListenerContainer.removeMessageListener(readReceiptService, new ChannelTopic(ReadReceiptService.readChannel(roomId)));
+            return;
+        }
+        if(pubSubTransport) {
+            redisMessageListenerContainer.removeMessageListener(redisPubSubService, new ChannelTopic(RedisPubSubService.roomChannel(roomId)));
+        } else {
+            redisStreamService.getObject().untrack(roomId);
+        }
+        // 구독이 없는 동안의 메세지는 받지 못하므로 최근 메세지 캐시도 비운다
+        recentMessageCache.evict(roomId);
+    }
+
+    enum ChannelKind {
+        CHAT, READ
+    }
+
+    record RoomChannel(Long roomId, ChannelKind kind) {
+    }
+
+    private static final class RoomRef {
+        private int count;
+        private boolean released;
+    }
+
+}
@@ -0,0 +1,286 @@
+package com.example.chatserver.chat.service;
+
+import com.example.chatserver.chat.dto.ChatMessageDto;
+import com.example.chatserver.common.configs.NodeIdentity;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+// redis stream 기반 transport (chat.transport=stream)
+// - 발행 : room별 stream(chat:stream:{roomId})에 XADD, MAXLEN ~ 으로 길이 제한
+// - 수신 : 전용 스레드가 이 노드에 구독자가 있는 room의 stream을 room별 마지막 id부터 XREAD
+//   redis 재연결, GC pause 등으로 읽기가 끊겨도 마지막 id부터 다시 읽으므로 유실되지 않는다
+// - room 첫 구독 시(RedisRoomSubscriptionService) 그 시점의 마지막 id를 바로 커서로 잡고(track),
+//   노드별 wake stream(chat:stream:wake:{nodeId})에 XADD 해서 대기 중인 XREAD를 깨운다
+//   => 구독 직후 발행된 메세지도 다음 XREAD에서 읽힌다
+// - 클라이언트 재연결 : STOMP stream-id 헤더로 받은 마지막 id 이후 메세지를 replay()로 조회
+@Service
+public class RedisStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisStreamService.class);
+
+    public static final String ROOM_STREAM_PREFIX = "chat:stream:";
+
+    private static final int ROOM_STREAM_PREFIX_LENGTH = ROOM_STREAM_PREFIX.length();
+    private static final byte[] PAYLOAD_FIELD = "payload".getBytes(StandardCharsets.UTF_8);
+    private static final String EMPTY_STREAM_ID = "0-0";
+    private static final String WAKE_STREAM_PREFIX = "chat:stream:wake:";
+    private static final long WAKE_STREAM_TTL_SECONDS = 3600;
+    // ms-seq 전체 형식만 허용 : seq를 생략하면 XRANGE가 {ms}-0부터 포함해서 읽어 이미 받은 메세지를 다시 돌려준다
+    private static final Pattern STREAM_ID_PATTERN = Pattern.compile("\\d{1,19}-\\d{1,19}");
+
+    private final RedisConnectionFactory redisConnectionFactory;
+    private final ChatDeliveryService chatDeliveryService;
+    private final ChatService chatService;
+    private final ObjectReader chatMessageReader;
+
+    private final boolean enabled;
+    private final long maxLength;
+    private final int readCount;
+    private final long blockMs;
+
+    // roomId -> 이 노드가 마지막으로 읽은 stream id (이 노드에 구독자가 있는 room만)
+    private final Map<Long, String> cursors = new ConcurrentHashMap<>();
+
+    private final byte[] wakeKey;
+    private volatile String wakeCursor;
+
+    private volatile boolean running;
+    private Thread reader;
+
+    public RedisStreamService(RedisConnectionFactory redisConnectionFactory,
+                              ChatDeliveryService chatDeliveryService,
+                              ChatService chatService,
+                              ObjectMapper objectMapper,
+                              NodeIdentity nodeIdentity,
+                              @Value("${chat.transport:pubsub}") String transport,
+                              @Value("${chat.stream.max-length:10000}") long maxLength,
+                              @Value("${chat.stream.read-count:500}") int readCount,
+                              @Value("${chat.stream.block-ms:1000}") long blockMs) {
+        this.redisConnectionFactory = redisConnectionFactory;
+        this.chatDeliveryService = chatDeliveryService;
+        this.chatService = chatService;
+        this.chatMessageReader = objectMapper.readerFor(ChatMessageDto.class);
+        this.enabled = "stream".equalsIgnoreCase(transport);
+        this.maxLength = maxLength;
+        this.readCount = readCount;
+        this.blockMs = blockMs;
+        this.wakeKey = (WAKE_STREAM_PREFIX + nodeIdentity.getNodeId()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static String roomStream(Long roomId) {
+        return ROOM_STREAM_PREFIX + roomId;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // XADD가 돌려주는 형식(ms-seq, seq 생략 가능)인지
+    public static boolean isValidStreamId(String streamId) {
+        return streamId != null && STREAM_ID_PATTERN.matcher(streamId).matches();
+    }
+
+    // room 첫 구독 : 지금의 마지막 id부터 읽도록 커서를 잡고 reader를 깨운다 (RedisRoomSubscriptionService의 room lock 안에서 호출)
+    public void track(Long roomId) {
+        byte[] key = roomStream(roomId).getBytes(StandardCharsets.UTF_8);
+        try(RedisConnection connection = redisConnectionFactory.getConnection()) {
+            cursors.put(roomId, lastStreamId(connection, key));
+            MapRecord<byte[], byte[], byte[]> wake = MapRecord.create(wakeKey, Collections.singletonMap(PAYLOAD_FIELD, roomId.toString().getBytes(StandardCharsets.UTF_8)));
+            connection.streamCommands().xAdd(wake, XAddOptions.maxlen(16).approximateTrimming(true));
+            connection.keyCommands().expire(wakeKey, WAKE_STREAM_TTL_SECONDS);
+        }
+    }
+
+    // room 마지막 구독 해제
+    public void untrack(Long roomId) {
+        cursors.remove(roomId);
+    }
+
+    @PostConstruct
+    public void start() {
+        if(!enabled) return;
+        running = true;
+        reader = new Thread(this::readLoop, "chat-stream-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if(reader == null) return;
+        running = false;
+        reader.interrupt();
+        reader.join(blockMs * 2);
+    }
+
+    public void append(Long roomId, byte[] payload) {
+        byte[] key = roomStream(roomId).getBytes(StandardCharsets.UTF_8);
+        MapRecord<byte[], byte[], byte[]> record = MapRecord.create(key, Collections.singletonMap(PAYLOAD_FIELD, payload));
+        try(RedisConnection connection = redisConnectionFactory.getConnection()) {
+            connection.streamCommands().xAdd(record, XAddOptions.maxlen(maxLength).approximateTrimming(true));
+        }
+    }
+
+    // afterStreamId 이후(해당 id 제외)의 메세지를 최대 limit건 조회 (limit은 stream 최대 길이까지)
+    public List<ChatMessageDto> replay(Long roomId, String afterStreamId, int requestedLimit) {
+        if(!chatService.isRoomPaticipant(SecurityContextHolder.getContext().getAuthentication().getName(), roomId)) {
+            throw new IllegalArgumentException("replay - 해당 채팅방에 참여한 사용자가 아닙니다.");
+        }
+
+        // XRANGE는 limit + 1건 조회 (afterStreamId 자신 포함)
+        int limit = (int) Math.min(Math.min(requestedLimit, maxLength), Integer.MAX_VALUE - 1);
+        String from = afterStreamId == null ? EMPTY_STREAM_ID : afterStreamId;
+        byte[] key = roomStream(roomId).getBytes(StandardCharsets.UTF_8);
+        List<ByteRecord> records;
+        try(RedisConnection connection = redisConnectionFactory.getConnection()) {
+            records = connection.streamCommands().xRange(key, Range.rightUnbounded(Range.Bound.inclusive(from)), Limit.limit().count(limit + 1));
+        }
+
+        List<ChatMessageDto> chatMessageDtos = new ArrayList<>();
+        if(records == null) return chatMessageDtos;
+        for(ByteRecord r : records) {
+            String streamId = r.getId().getValue();
+            if(streamId.equals(from)) continue;
+            if(chatMessageDtos.size() == limit) break;
+            try {
+                ChatMessageDto chatMessageDto = chatMessageReader.readValue(payloadOf(r));
+                chatMessageDto.setStreamId(streamId);
+                chatMessageDtos.add(chatMessageDto);
+            } catch (IOException e) {
+                log.warn("replay - 메세지 파싱 실패 roomId={}, streamId={}", roomId, streamId, e);
+            }
+        }
+        return chatMessageDtos;
+    }
+
+    private void readLoop() {
+        RedisConnection connection = null;
+        while(running) {
+            try {
+                if(connection == null) {
+                    connection = redisConnectionFactory.getConnection();
+                }
+
+                if(wakeCursor == null) {
+                    wakeCursor = lastStreamId(connection, wakeKey);
+                }
+
+                // 구독 중인 room이 없어도 wake stream은 읽으므로 track() 시 바로 깨어난다
+                List<StreamOffset<byte[]>> offsets = currentOffsets();
+
+                @SuppressWarnings("unchecked")
+                List<ByteRecord> records = connection.streamCommands().xRead(
+                        StreamReadOptions.empty().count(readCount).block(Duration.ofMillis(blockMs)),
+                        offsets.toArray(new StreamOffset[0]));
+                if(records == null) continue;
+
+                for(ByteRecord r : records) {
+                    String streamId = r.getId().getValue();
+                    if(Arrays.equals(r.getStream(), wakeKey)) {
+                        wakeCursor = streamId;
+                        continue;
+                    }
+                    Long roomId = ChatDeliveryService.parseRoomId(r.getStream(), ROOM_STREAM_PREFIX_LENGTH);
+                    // 읽는 도중 구독이 모두 해제된 room은 커서를 다시 만들지 않고,
+                    // 다시 구독되어 커서가 더 뒤로 잡힌 room은 이전 XREAD 결과를 전달하지 않는다
+                    if(advance(roomId, streamId)) {
+                        chatDeliveryService.deliver(roomId, payloadOf(r), streamId);
+                    }
+                }
+            } catch (RuntimeException e) {
+                // 연결을 다시 맺고 room별 커서부터 이어서 읽는다
+                log.warn("stream 읽기 실패, 재연결 후 마지막 id부터 다시 읽음", e);
+                closeQuietly(connection);
+                connection = null;
+                sleepQuietly();
+            }
+        }
+        closeQuietly(connection);
+    }
+
+    private List<StreamOffset<byte[]>> currentOffsets() {
+        List<StreamOffset<byte[]>> offsets = new ArrayList<>(cursors.size() + 1);
+        offsets.add(StreamOffset.create(wakeKey, ReadOffset.from(wakeCursor)));
+        cursors.forEach((roomId, cursor) ->
+                offsets.add(StreamOffset.create(roomStream(roomId).getBytes(StandardCharsets.UTF_8), ReadOffset.from(cursor))));
+        return offsets;
+    }
+
+    // 커서보다 뒤의 id면 커서를 옮기고 true
+    private boolean advance(Long roomId, String streamId) {
+        boolean[] advanced = new boolean[1];
+        cursors.computeIfPresent(roomId, (id, cursor) -> {
+            if(compareStreamIds(streamId, cursor) <= 0) return cursor;
+            advanced[0] = true;
+            return streamId;
+        });
+        return advanced[0];
+    }
+
+    static int compareStreamIds(String a, String b) {
+        int aDash = a.indexOf('-');
+        int bDash = b.indexOf('-');
+        long aMs = Long.parseLong(aDash < 0 ? a : a.substring(0, aDash));
+        long bMs = Long.parseLong(bDash < 0 ? b : b.substring(0, bDash));
+        if(aMs != bMs) return Long.compare(aMs, bMs);
+        long aSeq = aDash < 0 ? 0 : Long.parseLong(a.substring(aDash + 1));
+        long bSeq = bDash < 0 ? 0 : Long.parseLong(b.substring(bDash + 1));
+        return Long.compare(aSeq, bSeq);
+    }
+
+    private String lastStreamId(RedisConnection connection, byte[] key) {
+        List<ByteRecord> last = connection.streamCommands().xRevRange(key, Range.unbounded(), Limit.limit().count(1));
+        if(last == null || last.isEmpty()) return EMPTY_STREAM_ID;
+        return last.get(0).getId().getValue();
+    }
+
+    private static byte[] payloadOf(ByteRecord record) {
+        return record.getValue().values().iterator().next();
+    }
+
+    private static void closeQuietly(RedisConnection connection) {
+        if(connection == null) return;
+        try {
+            connection.close();
+        } catch (RuntimeException ignored) {
+        }
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(blockMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+}
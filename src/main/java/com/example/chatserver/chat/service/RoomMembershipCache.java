@@ -0,0 +1,164 @@
+package com.example.chatserver.chat.service;
+
+import com.example.chatserver.chat.repository.ChatParticipantRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+// room 참여자 인덱스 : roomId -> 정렬된 memberId 배열(long[])
+// - 조회 순서 : 로컬 캐시 -> redis 공유 사본(SET chat:room:{roomId}:members) -> DB
+// - 참여자 변경(참여, 나가기, 1:1 채팅방 생성) 시 커밋 후 redis 사본을 지우고 모든 노드에 무효화 이벤트 발행
+// - redis 사본은 버전 key(chat:room:{roomId}:members:ver)로 보호 : 무효화 시 INCR, DB 조회 전에 읽은 버전이
+//   그대로일 때만 사본을 다시 쓴다 (DB 조회 중에 다른 노드가 무효화하면 이전 참여자 목록을 쓰지 않는다)
+@Service
+public class RoomMembershipCache implements MessageListener {
+
+    public static final String INVALIDATE_CHANNEL = "chat:membership:invalidate";
+
+    private static final String MEMBERS_KEY_PREFIX = "chat:room:";
+    private static final String MEMBERS_KEY_SUFFIX = ":members";
+    private static final String VERSION_KEY_SUFFIX = ":members:ver";
+
+    // KEYS[1] = 사본, KEYS[2] = 버전 / ARGV[1] = DB 조회 전 버전('' = 없음), ARGV[2] = TTL(초), ARGV[3..] = memberId
+    private static final RedisScript<Long> WRITE_IF_VERSION_UNCHANGED = new DefaultRedisScript<>(
+            "if (redis.call('GET', KEYS[2]) or '') ~= ARGV[1] then return 0 end " +
+            "redis.call('DEL', KEYS[1]) " +
+            "for i = 3, #ARGV, 1000 do redis.call('SADD', KEYS[1], unpack(ARGV, i, math.min(i + 999, #ARGV))) end " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[2]) " +
+            "return 1", Long.class);
+
+    // KEYS[1] = 사본, KEYS[2] = 버전 / ARGV[1] = 버전 TTL(초)
+    private static final RedisScript<Long> INVALIDATE = new DefaultRedisScript<>(
+            "redis.call('DEL', KEYS[1]) " +
+            "local v = redis.call('INCR', KEYS[2]) " +
+            "redis.call('EXPIRE', KEYS[2], ARGV[1]) " +
+            "return v", Long.class);
+
+    private final ChatParticipantRepository chatParticipantRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final Duration ttl;
+    private final Cache<Long, long[]> localCache;
+
+    public RoomMembershipCache(ChatParticipantRepository chatParticipantRepository,
+                               StringRedisTemplate stringRedisTemplate,
+                               RedisMessageListenerContainer redisMessageListenerContainer,
+                               @Value("${chat.membership-cache.max-rooms:10000}") long maxRooms,
+                               @Value("${chat.membership-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.chatParticipantRepository = chatParticipantRepository;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisMessageListenerContainer = redisMessageListenerContainer;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(maxRooms)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @PostConstruct
+    public void subscribeInvalidation() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    public boolean isMember(Long roomId, Long memberId) {
+        long[] memberIds = localCache.get(roomId, this::load);
+        if(Arrays.binarySearch(memberIds, memberId) >= 0) {
+            return true;
+        }
+
+        // 캐시에 없으면 DB로 한 번 더 확인 (방금 참여해서 다른 노드의 사본이 아직 갱신되지 않은 경우 대비)
+        if(chatParticipantRepository.existsByChatRoomIdAndMemberId(roomId, memberId)) {
+            invalidate(roomId);
+            return true;
+        }
+        return false;
+    }
+
+    // room 참여자 id (정렬된 배열, 수정하지 말 것)
+    public long[] memberIds(Long roomId) {
+        return localCache.get(roomId, this::load);
+    }
+
+    // 참여자 변경 시 호출, 트랜잭션 안이면 커밋 이후에 무효화 (커밋 전 다른 노드가 이전 데이터를 다시 채우지 않도록)
+    public void onMembershipChanged(Long roomId) {
+        if(TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(roomId);
+                }
+            });
+        } else {
+            invalidate(roomId);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        localCache.invalidate(Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8)));
+    }
+
+    private void invalidate(Long roomId) {
+        localCache.invalidate(roomId);
+        // 버전 key는 사본보다 오래 남겨 사본을 쓰는 동안 사라지지 않게 한다 (사라져도 버전이 달라져 쓰지 않는다)
+        stringRedisTemplate.execute(INVALIDATE, List.of(membersKey(roomId), versionKey(roomId)), Long.toString(ttl.toSeconds() * 2));
+        stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, roomId.toString());
+    }
+
+    private long[] load(Long roomId) {
+        String key = membersKey(roomId);
+        String versionKey = versionKey(roomId);
+
+        // 버전은 사본/DB 조회 전에 읽는다
+        String version = stringRedisTemplate.opsForValue().get(versionKey);
+
+        // redis 공유 사본
+        Set<String> cached = stringRedisTemplate.opsForSet().members(key);
+        if(cached != null && !cached.isEmpty()) {
+            return toSortedArray(cached.stream().mapToLong(Long::parseLong).toArray());
+        }
+
+        // DB 조회 후 버전이 그대로일 때만 redis 사본 저장 (DEL + SADD + EXPIRE 한 번에)
+        List<Long> memberIds = chatParticipantRepository.findMemberIdsByChatRoomId(roomId);
+        if(!memberIds.isEmpty()) {
+            List<String> args = new ArrayList<>(memberIds.size() + 2);
+            args.add(version == null ? "" : version);
+            args.add(Long.toString(ttl.toSeconds()));
+            memberIds.forEach(id -> args.add(String.valueOf(id)));
+            stringRedisTemplate.execute(WRITE_IF_VERSION_UNCHANGED, List.of(key, versionKey), args.toArray());
+        }
+        return toSortedArray(memberIds.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    private static long[] toSortedArray(long[] memberIds) {
+        Arrays.sort(memberIds);
+        return memberIds;
+    }
+
+    private static String membersKey(Long roomId) {
+        return MEMBERS_KEY_PREFIX + roomId + MEMBERS_KEY_SUFFIX;
+    }
+
+    private static String versionKey(Long roomId) {
+        return MEMBERS_KEY_PREFIX + roomId + VERSION_KEY_SUFFIX;
+    }
+
+}
@@ -0,0 +1,196 @@
+package com.example.chatserver.chat.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// 바쁜 room의 /topic/{roomId} 전송을 묶어서 보낸다
+// - room별 초당 메세지 수가 rate-threshold 이상이면 window-ms 동안(또는 max-bytes까지) 모은 메세지를 JSON 배열 하나로 전송
+// - 한가한 room은 지금처럼 바로 전송 (지연 없음)
+// - 묶는 중인 room은 버퍼가 빌 때까지 계속 버퍼를 거치므로 메세지 순서가 바뀌지 않는다
+// - payload(JSON byte[])는 파싱하지 않고 '[' + p1 + ',' + p2 ... + ']' 로 이어 붙인다
+// - scheduler 스레드는 시간만 재고, 실제 묶음 전송은 room마다 virtual thread에서 (한 room의 느린 전송이 다른 room을 늦추지 않는다)
+// - 종료 시 모든 room의 버퍼를 보낸 뒤 멈추고, 그 이후 메세지는 바로 전송
+class RoomMessageCoalescer {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomMessageCoalescer.class);
+
+    interface Sender {
+        // batchSize 1 이면 단건(JSON 객체), 2 이상이면 JSON 배열
+        void send(Long roomId, byte[] payload, String streamId, int batchSize);
+    }
+
+    private final Sender sender;
+    private final int rateThreshold;
+    private final long windowMs;
+    private final int maxBytes;
+
+    private final Cache<Long, RoomState> rooms;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService flushExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile boolean stopped;
+
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong batchedMessageCount = new AtomicLong();
+
+    RoomMessageCoalescer(Sender sender, int rateThreshold, long windowMs, int maxBytes) {
+        this.sender = sender;
+        this.rateThreshold = rateThreshold;
+        this.windowMs = windowMs;
+        this.maxBytes = maxBytes;
+        // 한동안 메세지가 없는 room 상태는 정리 (예약된 flush는 상태 객체를 직접 참조하므로 영향 없음)
+        this.rooms = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(1))
+                .build();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "chat-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void submit(Long roomId, byte[] payload, String streamId) {
+        rooms.get(roomId, RoomState::new).submit(payload, streamId);
+    }
+
+    long getBatchCount() {
+        return batchCount.get();
+    }
+
+    long getBatchedMessageCount() {
+        return batchedMessageCount.get();
+    }
+
+    // 버퍼에 남은 메세지를 모두 보낸 뒤 종료 (예약된 flush는 실행되지만 버퍼가 비어 있으면 아무것도 하지 않는다)
+    void shutdown() {
+        if(stopped) return;
+        stopped = true;
+        for(RoomState state : rooms.asMap().values()) {
+            state.flushNow();
+        }
+        long timeoutMs = windowMs + TimeUnit.SECONDS.toMillis(5);
+        try {
+            scheduler.shutdown();
+            boolean terminated = scheduler.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+            flushExecutor.shutdown();
+            terminated &= flushExecutor.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+            if(!terminated) {
+                log.warn("coalescing 종료 대기 시간 초과");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private final class RoomState {
+        private final Long roomId;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        // 초당 메세지 수 (1초 bucket 2개)
+        private long bucketSecond;
+        private int currentCount;
+        private int previousCount;
+
+        private final List<byte[]> buffer = new ArrayList<>();
+        private int bufferedBytes;
+        private String lastStreamId;
+        private boolean flushScheduled;
+
+        private RoomState(Long roomId) {
+            this.roomId = roomId;
+        }
+
+        private void submit(byte[] payload, String streamId) {
+            lock.lock();
+            try {
+                long second = System.nanoTime() / 1_000_000_000L;
+                if(second != bucketSecond) {
+                    previousCount = second == bucketSecond + 1 ? currentCount : 0;
+                    currentCount = 0;
+                    bucketSecond = second;
+                }
+                currentCount++;
+
+                // 종료 중이면 남은 버퍼 다음에 바로 전송
+                if(stopped) {
+                    flush();
+                    sender.send(roomId, payload, streamId, 1);
+                    return;
+                }
+
+                boolean hot = Math.max(currentCount, previousCount) >= rateThreshold;
+                if(!hot && buffer.isEmpty()) {
+                    sender.send(roomId, payload, streamId, 1);
+                    return;
+                }
+
+                buffer.add(payload);
+                bufferedBytes += payload.length;
+                lastStreamId = streamId;
+                if(bufferedBytes >= maxBytes) {
+                    flush();
+                } else if(!flushScheduled) {
+                    try {
+                        scheduler.schedule(() -> flushExecutor.execute(this::flushNow), windowMs, TimeUnit.MILLISECONDS);
+                        flushScheduled = true;
+                    } catch (RejectedExecutionException e) {
+                        // 종료와 겹친 경우 : 기다리지 않고 바로 전송
+                        flush();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void flushNow() {
+            lock.lock();
+            try {
+                flushScheduled = false;
+                flush();
+            } catch (RuntimeException e) {
+                log.warn("coalescing 전송 실패 roomId={}", roomId, e);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // lock 안에서 호출
+        private void flush() {
+            int size = buffer.size();
+            if(size == 0) return;
+            if(size == 1) {
+                sender.send(roomId, buffer.get(0), lastStreamId, 1);
+            } else {
+                byte[] batch = new byte[bufferedBytes + size + 1];
+                int offset = 0;
+                batch[offset++] = '[';
+                for(int i = 0; i < size; i++) {
+                    if(i > 0) batch[offset++] = ',';
+                    byte[] payload = buffer.get(i);
+                    System.arraycopy(payload, 0, batch, offset, payload.length);
+                    offset += payload.length;
+                }
+                batch[offset] = ']';
+                sender.send(roomId, batch, lastStreamId, size);
+                batchCount.incrementAndGet();
+                batchedMessageCount.addAndGet(size);
+            }
+            buffer.clear();
+            bufferedBytes = 0;
+        }
+    }
+
+}
@@ -0,0 +1,218 @@
+package com.example.chatserver.chat.service;
+
+import com.example.chatserver.chat.repository.ChatMessageRepository;
+import com.example.chatserver.chat.repository.ChatMessageRepository.RoomUnreadCount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// member별 안읽은 메세지 수 : redis hash chat:unread:{memberId} (field = roomId, value = 안읽은 수)
+// - 메세지 저장(커밋) 시 보낸이를 제외한 room 참여자의 카운터를 증가 (hash가 있는 member만, pipeline 1회)
+// - 읽음 처리 시 해당 room 카운터를 0으로
+// - hash가 없으면(cold) 모든 room의 카운트를 group by 쿼리 1회로 계산해 채우고 TTL 설정
+//   TTL이 지나면 다시 DB 기준으로 채워지므로 카운터 오차(동시 갱신 등)는 TTL 주기로 보정된다
+// - 카운터 갱신 실패는 메세지 저장/읽음 처리/나가기 실패가 아니다 : 모두 커밋 이후에 갱신하고 로그만 남긴다
+//   읽음/나가기 반영에 실패하면 member의 hash를 지워 다음 조회 때 DB 기준으로 다시 채운다
+// - 조회 중 redis 장애면 group by 쿼리 결과를 그대로 반환
+// - script는 EVALSHA로 실행 (매 메세지마다 script 본문을 보내지 않도록)
+@Service
+public class UnreadCounterService {
+
+    private static final Logger log = LoggerFactory.getLogger(UnreadCounterService.class);
+
+    private static final String UNREAD_KEY_PREFIX = "chat:unread:";
+
+    // hash가 있을 때만 증가 : cold 상태에서 일부 room만 있는 hash가 만들어지지 않도록
+    private static final RedisScript<Long> INCREMENT_IF_EXISTS = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then " +
+            "return redis.call('HINCRBY', KEYS[1], ARGV[1], ARGV[2]) end " +
+            "return 0", Long.class);
+
+    private static final RedisScript<Long> RESET_IF_EXISTS = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then " +
+            "redis.call('HSET', KEYS[1], ARGV[1], 0) end " +
+            "return 0", Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RoomMembershipCache roomMembershipCache;
+    private final ChatMessageRepository chatMessageRepository;
+    private final long ttlSeconds;
+
+    public UnreadCounterService(StringRedisTemplate stringRedisTemplate,
+                                RoomMembershipCache roomMembershipCache,
+                                ChatMessageRepository chatMessageRepository,
+                                @Value("${chat.unread.ttl-seconds:3600}") long ttlSeconds) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.roomMembershipCache = roomMembershipCache;
+        this.chatMessageRepository = chatMessageRepository;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    // 메세지 저장 후 호출, 트랜잭션 안이면 커밋 이후에 증가
+    // 이미 커밋된 메세지이므로 redis 장애가 전송 실패로 이어지지 않게 한다 (TTL 후 DB 기준으로 보정)
+    public void onMessageSaved(Long roomId, Long senderId) {
+        afterCommit(() -> incrementQuietly(roomId, senderId));
+    }
+
+    // 읽음 처리 : 커밋 이후 해당 room 카운터를 0으로 (읽음 커서 갱신이 redis 장애로 롤백되지 않게 한다)
+    public void onRead(Long memberId, Long roomId) {
+        afterCommit(() -> updateQuietly(memberId, roomId, () -> reset(memberId, roomId)));
+    }
+
+    // room 나가기 : 커밋 이후 해당 room field 삭제
+    public void onLeft(Long memberId, Long roomId) {
+        afterCommit(() -> updateQuietly(memberId, roomId, () -> remove(memberId, roomId)));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if(TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // 실패하면 member hash를 지워 다음 조회 때 DB 기준으로 다시 채운다 (TTL까지 틀린 값이 보이지 않게)
+    private void updateQuietly(Long memberId, Long roomId, Runnable update) {
+        try {
+            update.run();
+        } catch (RuntimeException e) {
+            log.warn("안읽은 메세지 카운터 갱신 실패 memberId={} roomId={}", memberId, roomId, e);
+            try {
+                stringRedisTemplate.delete(unreadKey(memberId));
+            } catch (RuntimeException deleteFailure) {
+                log.warn("안읽은 메세지 카운터 삭제 실패 memberId={}", memberId, deleteFailure);
+            }
+        }
+    }
+
+    private void incrementQuietly(Long roomId, Long senderId) {
+        try {
+            increment(roomId, Map.of(senderId, 1));
+        } catch (RuntimeException e) {
+            log.warn("안읽은 메세지 카운터 갱신 실패 roomId={}", roomId, e);
+        }
+    }
+
+    // sentCountBySender : 보낸이별 저장된 메세지 수 (write-behind batch는 room별로 모아서 호출)
+    // 참여자별 증가량 = room 전체 메세지 수 - 본인이 보낸 메세지 수
+    public void increment(Long roomId, Map<Long, Integer> sentCountBySender) {
+        int total = 0;
+        for(int count : sentCountBySender.values()) total += count;
+        final int messageCount = total;
+
+        byte[] field = bytes(roomId.toString());
+        long[] memberIds = roomMembershipCache.memberIds(roomId);
+        RedisCallback<Object> incrementAll = connection -> {
+            for(long memberId : memberIds) {
+                int delta = messageCount - sentCountBySender.getOrDefault(memberId, 0);
+                if(delta <= 0) continue;
+                connection.scriptingCommands().evalSha(INCREMENT_IF_EXISTS.getSha1(), ReturnType.INTEGER, 1,
+                        bytes(unreadKey(memberId)), field, bytes(Integer.toString(delta)));
+            }
+            return null;
+        };
+        try {
+            stringRedisTemplate.executePipelined(incrementAll);
+        } catch (RuntimeException e) {
+            // pipeline 안에서는 template의 NOSCRIPT 재시도가 동작하지 않는다
+            // redis 재시작 등으로 script cache가 비었으면 한 번 적재 후 다시 실행 (NOSCRIPT면 어떤 명령도 실행되지 않았다)
+            if(!isNoScript(e)) throw e;
+            stringRedisTemplate.execute((RedisCallback<String>) connection ->
+                    connection.scriptingCommands().scriptLoad(bytes(INCREMENT_IF_EXISTS.getScriptAsString())));
+            stringRedisTemplate.executePipelined(incrementAll);
+        }
+    }
+
+    // 단건은 template이 EVALSHA 후 NOSCRIPT면 EVAL로 재시도한다
+    private void reset(Long memberId, Long roomId) {
+        stringRedisTemplate.execute(RESET_IF_EXISTS, List.of(unreadKey(memberId)), roomId.toString());
+    }
+
+    private void remove(Long memberId, Long roomId) {
+        stringRedisTemplate.opsForHash().delete(unreadKey(memberId), roomId.toString());
+    }
+
+    // roomId -> 안읽은 수, hash가 없으면 DB에서 한 번에 계산 후 저장
+    public Map<Long, Long> getCounts(Long memberId, Collection<Long> roomIds) {
+        String key = unreadKey(memberId);
+        Map<Object, Object> cached;
+        try {
+            cached = stringRedisTemplate.opsForHash().entries(key);
+        } catch (RuntimeException e) {
+            log.warn("안읽은 메세지 카운터 조회 실패, DB 기준으로 계산 memberId={}", memberId, e);
+            return countFromDb(memberId, roomIds);
+        }
+
+        Map<Long, Long> counts = new HashMap<>();
+        if(!cached.isEmpty()) {
+            for(Map.Entry<Object, Object> e : cached.entrySet()) {
+                counts.put(Long.parseLong((String) e.getKey()), Long.parseLong((String) e.getValue()));
+            }
+            return counts;
+        }
+
+        counts = countFromDb(memberId, roomIds);
+        if(!counts.isEmpty()) {
+            Map<byte[], byte[]> hash = new HashMap<>();
+            counts.forEach((roomId, count) -> hash.put(bytes(roomId.toString()), bytes(count.toString())));
+            try {
+                stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    connection.hashCommands().hMSet(bytes(key), hash);
+                    connection.keyCommands().expire(bytes(key), ttlSeconds);
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                log.warn("안읽은 메세지 카운터 저장 실패 memberId={}", memberId, e);
+            }
+        }
+        return counts;
+    }
+
+    // cold : 참여 중인 모든 room을 0으로 채운 뒤 group by 결과로 덮어쓴다
+    private Map<Long, Long> countFromDb(Long memberId, Collection<Long> roomIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        for(Long roomId : roomIds) {
+            counts.put(roomId, 0L);
+        }
+        for(RoomUnreadCount r : chatMessageRepository.countUnreadGroupByRoom(memberId)) {
+            counts.put(r.getRoomId(), r.getUnreadCount());
+        }
+        return counts;
+    }
+
+    private static boolean isNoScript(Throwable e) {
+        for(Throwable t = e; t != null; t = t.getCause()) {
+            if(t.getMessage() != null && t.getMessage().contains("NOSCRIPT")) return true;
+        }
+        return false;
+    }
+
+    private static String unreadKey(Long memberId) {
+        return UNREAD_KEY_PREFIX + memberId;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -1,68 +1,84 @@
 package com.example.chatserver.common.auth;
 
+import com.example.chatserver.common.configs.SecurityConfigs;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.beans.factory.annotation.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
 
-import javax.security.sasl.AuthenticationException;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 
 @Component
 public class JwtAuthFilter extends GenericFilter {
 
-    @Value("${jwt.secretKey}")
-    private String secretKey;
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthFilter.class);
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final JwtClaimsCache jwtClaimsCache;
+
+    public JwtAuthFilter(JwtClaimsCache jwtClaimsCache) {
+        this.jwtClaimsCache = jwtClaimsCache;
+    }
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain filterChain) throws IOException, ServletException {
         HttpServletRequest httpServletRequest = (HttpServletRequest) request;
         HttpServletResponse httpServletResponse = (HttpServletResponse) response;
 
+        // 인증처리 제외 url은 토큰을 보지 않는다
+        if(isPermitAll(httpServletRequest.getRequestURI())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
         String token = httpServletRequest.getHeader("Authorization");
-        try {
-            if(token != null) {
-                if(!token.substring(0,7).equals("Bearer ")) {
-                    throw new AuthenticationException("Bearer 형식x");
+        if(token != null) {
+            try {
+                if(!token.startsWith(BEARER_PREFIX)) {
+                    throw new JwtException("Bearer 형식x");
                 }
 
-                // token 검증 및 claims 추출
-                String jwtToken = token.substring(7);
-                Claims claims = Jwts.parserBuilder()
-                        .setSigningKey(secretKey)
-                        .build()
-                        .parseClaimsJws(jwtToken)
-                        .getBody();
+                // token 검증 및 claims 추출 (검증된 토큰은 exp까지 캐시)
+                Claims claims = jwtClaimsCache.verify(token.substring(BEARER_PREFIX.length()));
 
                 // Authentication 객체 생성
-                List<GrantedAuthority> authorities = new ArrayList<>();
-                authorities.add(new SimpleGrantedAuthority("ROLE_"+claims.get("role")));
-                UserDetails userDetails = new User(claims.getSubject(), "", authorities);
+                UserDetails userDetails = new User(claims.getSubject(), "", List.of(new SimpleGrantedAuthority("ROLE_"+claims.get("role"))));
                 Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, "" , userDetails.getAuthorities());
                 SecurityContextHolder.getContext().setAuthentication(authentication);
-
+            } catch (JwtException | IllegalArgumentException e) {
+                log.debug("invalid token : {}", e.getMessage());
+                httpServletResponse.setStatus(HttpStatus.UNAUTHORIZED.value());
+                httpServletResponse.setContentType("application/json");
+                httpServletResponse.getWriter().write("invalid token");
+                return;
             }
+        }
 
-            filterChain.doFilter(request, response);
-        }catch (Exception e) {
-            e.printStackTrace();
-            httpServletResponse.setStatus(HttpStatus.UNAUTHORIZED.value());
-            httpServletResponse.setContentType("application/json");
-            httpServletResponse.getWriter().write("invalid token");
+        filterChain.doFilter(request, response);
+    }
+
+    private static boolean isPermitAll(String uri) {
+        for(String pattern : SecurityConfigs.PERMIT_ALL_PATHS) {
+            if(PATH_MATCHER.match(pattern, uri)) {
+                return true;
+            }
         }
+        return false;
     }
 
-}
\ No newline at end of file
+}
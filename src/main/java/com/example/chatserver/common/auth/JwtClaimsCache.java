@@ -0,0 +1,75 @@
+package com.example.chatserver.common.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// 검증이 끝난 토큰의 claims 캐시 : SHA-256(token) -> claims
+// - 같은 토큰으로 반복 요청(polling 등)할 때 서명(HMAC) 재계산을 하지 않는다
+// - 각 항목은 토큰의 exp 시점에 만료되므로 만료된 토큰이 캐시로 통과되지 않는다
+// - 원본 토큰 문자열은 보관하지 않고 digest만 key로 사용
+@Component
+public class JwtClaimsCache {
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final Cache<ByteBuffer, Claims> cache;
+
+    public JwtClaimsCache(JwtTokenProvider jwtTokenProvider,
+                          @Value("${jwt.claims-cache.max-size:10000}") long maxSize,
+                          @Value("${jwt.claims-cache.max-ttl-seconds:3600}") long maxTtlSeconds) {
+        this.jwtTokenProvider = jwtTokenProvider;
+        long maxTtlNanos = TimeUnit.SECONDS.toNanos(maxTtlSeconds);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<ByteBuffer, Claims>() {
+                    @Override
+                    public long expireAfterCreate(ByteBuffer key, Claims claims, long currentTime) {
+                        Date expiration = claims.getExpiration();
+                        if(expiration == null) return maxTtlNanos;
+                        long remaining = TimeUnit.MILLISECONDS.toNanos(expiration.getTime() - System.currentTimeMillis());
+                        return Math.max(0, Math.min(remaining, maxTtlNanos));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ByteBuffer key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(ByteBuffer key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    // 캐시에 없으면 서명, 만료 검증 후 저장 (검증 실패 시 JwtException, 실패한 토큰은 캐시하지 않는다)
+    public Claims verify(String token) {
+        ByteBuffer key = digest(token);
+        Claims claims = cache.getIfPresent(key);
+        if(claims == null) {
+            claims = jwtTokenProvider.parseClaims(token);
+            cache.put(key, claims);
+        }
+        return claims;
+    }
+
+    private static ByteBuffer digest(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
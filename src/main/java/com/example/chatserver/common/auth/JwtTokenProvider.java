@@ -1,6 +1,7 @@
 package com.example.chatserver.common.auth;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.springframework.beans.factory.annotation.Value;
@@ -17,10 +18,16 @@ public class JwtTokenProvider {
     private final int expiration;
     private Key SECRET_KEY;
 
+    // parser는 thread-safe하므로 한 번만 만들어 재사용 (요청마다 key 디코딩, parser 생성을 하지 않도록)
+    private final JwtParser jwtParser;
+
     public JwtTokenProvider(@Value("${jwt.secretKey}") String secretKey,@Value("${jwt.expiration}") int expiration) {
         this.secretKey = secretKey;
         this.expiration = expiration;
         this.SECRET_KEY = new SecretKeySpec(java.util.Base64.getDecoder().decode(secretKey), SignatureAlgorithm.HS512.getJcaName());
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(SECRET_KEY)
+                .build();
     }
 
     public String createToken(String email, String role) {
@@ -37,4 +44,9 @@ public class JwtTokenProvider {
         return token;
     }
 
+    // 서명, 만료 검증 후 claims 반환 (검증 실패 시 JwtException)
+    public Claims parseClaims(String token) {
+        return jwtParser.parseClaimsJws(token).getBody();
+    }
+
 }
@@ -0,0 +1,23 @@
+package com.example.chatserver.common.configs;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+// 클러스터 안에서 이 서버 인스턴스를 구분하는 id
+// chat.node-id를 지정하지 않으면 기동할 때마다 새로 만든다 (재기동한 노드는 다른 노드로 취급)
+@Component
+public class NodeIdentity {
+
+    private final String nodeId;
+
+    public NodeIdentity(@Value("${chat.node-id:}") String nodeId) {
+        this.nodeId = nodeId == null || nodeId.isBlank() ? UUID.randomUUID().toString().substring(0, 8) : nodeId;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+}
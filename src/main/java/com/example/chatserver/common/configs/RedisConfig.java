@@ -1,15 +1,12 @@
 package com.example.chatserver.common.configs;
 
-import com.example.chatserver.chat.service.RedisPubSubService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.listener.PatternTopic;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
-import org.springframework.data.redis.listener.adapter.MessageListenerAdapter;
 
 
 @Configuration
@@ -34,20 +31,11 @@ public class RedisConfig {
     }
 
     // Subscriber
+    // room 채널(chat:{roomId}), 읽음 채널(chat:read:{roomId})은 로컬 구독 여부에 따라 RedisRoomSubscriptionService가 동적으로 등록/해제
     @Bean
-    public RedisMessageListenerContainer redisMessageListenerContainer(
-            RedisConnectionFactory redisConnectionFactory,
-            MessageListenerAdapter messageListenerAdapter
-    ) {
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory) {
         RedisMessageListenerContainer container = new RedisMessageListenerContainer();
         container.setConnectionFactory(redisConnectionFactory);
-        container.addMessageListener(messageListenerAdapter, new PatternTopic("chat"));
         return container;
     }
-
-    // Pub/Sub handler
-    @Bean
-    public MessageListenerAdapter messageListenerAdapter(RedisPubSubService redisPubSubService) {
-        return new MessageListenerAdapter(redisPubSubService, "onMessage");
-    }
 }
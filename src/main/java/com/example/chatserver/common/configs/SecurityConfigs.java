@@ -1,8 +1,11 @@
 package com.example.chatserver.common.configs;
 
 import com.example.chatserver.common.auth.JwtAuthFilter;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -19,10 +22,16 @@ import java.util.Arrays;
 @Configuration
 public class SecurityConfigs {
 
+    // 인증처리 제외 url (JwtAuthFilter도 이 경로는 토큰 검증을 건너뛴다)
+    public static final String[] PERMIT_ALL_PATHS = {"/member/create", "/", "/member/doLogin", "/connect/**", "/ws/**"};
+
     private final JwtAuthFilter jwtAuthFilter;
+    // actuator(health, prometheus)가 서비스 포트와 다른 management 포트에 떠 있는지
+    private final boolean separateManagementPort;
 
-    public SecurityConfigs(JwtAuthFilter jwtAuthFilter) {
+    public SecurityConfigs(JwtAuthFilter jwtAuthFilter, Environment environment) {
         this.jwtAuthFilter = jwtAuthFilter;
+        this.separateManagementPort = ManagementPortType.get(environment) == ManagementPortType.DIFFERENT;
     }
 
     @Bean
@@ -31,7 +40,15 @@ public class SecurityConfigs {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(AbstractHttpConfigurer::disable) // csrf 비활성화
                 .httpBasic(AbstractHttpConfigurer::disable) // HTTP Basic 비활성화
-                .authorizeHttpRequests( a -> a.requestMatchers("/member/create","/","/member/doLogin", "/connect/**").permitAll().anyRequest().authenticated()) // 인증처리 제외 url
+                .authorizeHttpRequests( a -> {
+                    a.requestMatchers(PERMIT_ALL_PATHS).permitAll(); // 인증처리 제외 url
+                    // actuator는 management 포트(내부망, prometheus 수집용)로 들어온 요청만 인증 없이 허용
+                    // management 포트를 서비스 포트와 같게 두면 actuator도 인증이 필요하다
+                    if(separateManagementPort) {
+                        a.requestMatchers(EndpointRequest.toAnyEndpoint()).permitAll();
+                    }
+                    a.anyRequest().authenticated();
+                })
                 .sessionManagement(s -> s.sessionCreationPolicy(SessionCreationPolicy.STATELESS)) // 세션방식 사용x
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
                 .build();
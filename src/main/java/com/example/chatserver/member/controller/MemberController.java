@@ -5,6 +5,7 @@ import com.example.chatserver.member.domain.Member;
 import com.example.chatserver.member.dto.MemberListResDto;
 import com.example.chatserver.member.dto.MemberLoginReqDto;
 import com.example.chatserver.member.dto.MemberSaveReqDto;
+import com.example.chatserver.member.service.MemberCache;
 import com.example.chatserver.member.service.MemberService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -22,9 +23,12 @@ public class MemberController {
 
     private final JwtTokenProvider jwtTokenProvider;
 
-    public MemberController(MemberService memberService, JwtTokenProvider jwtTokenProvider) {
+    private final MemberCache memberCache;
+
+    public MemberController(MemberService memberService, JwtTokenProvider jwtTokenProvider, MemberCache memberCache) {
         this.memberService = memberService;
         this.jwtTokenProvider = jwtTokenProvider;
+        this.memberCache = memberCache;
     }
 
     @PostMapping("/create")
@@ -52,6 +56,19 @@ public class MemberController {
         return new ResponseEntity<>(dtos, HttpStatus.OK);
     }
 
+    // member near-cache hit/miss 현황
+    @GetMapping("/cache/stats")
+    public ResponseEntity<?> memberCacheStats() {
+        Map<String, Object> stats = Map.of(
+                "emailHitRate", memberCache.emailStats().hitRate(),
+                "emailHits", memberCache.emailStats().hitCount(),
+                "emailMisses", memberCache.emailStats().missCount(),
+                "idHitRate", memberCache.idStats().hitRate(),
+                "idHits", memberCache.idStats().hitCount(),
+                "idMisses", memberCache.idStats().missCount());
+        return new ResponseEntity<>(stats, HttpStatus.OK);
+    }
+
 }
 
 
@@ -0,0 +1,77 @@
+package com.example.chatserver.member.service;
+
+import com.example.chatserver.member.domain.Member;
+import com.example.chatserver.member.domain.Role;
+import com.example.chatserver.member.repository.MemberRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+// member near-cache : email, id 로 조회한 회원 정보를 로컬에 보관 (엔티티가 아닌 불변 snapshot)
+// - 회원 정보(id, email, 이름, 권한)는 수정 API가 없으므로 TTL 동안 DB 조회 없이 사용
+// - 비밀번호(hash)는 캐시하지 않는다 : 로그인은 항상 DB의 최신 값으로 검증 (MemberService.login)
+// - 없는 회원은 캐시하지 않는다 (가입 직후 바로 조회될 수 있도록)
+// - 회원 정보 수정 기능을 추가하면 변경 시 모든 노드의 캐시를 비우는 처리도 함께 추가해야 한다
+@Service
+public class MemberCache {
+
+    private final MemberRepository memberRepository;
+    private final Cache<String, CachedMember> byEmail;
+    private final Cache<Long, CachedMember> byId;
+
+    public MemberCache(MemberRepository memberRepository,
+                       @Value("${member.cache.max-size:10000}") long maxSize,
+                       @Value("${member.cache.ttl-seconds:600}") long ttlSeconds) {
+        this.memberRepository = memberRepository;
+        this.byEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    public Optional<CachedMember> findByEmail(String email) {
+        CachedMember cached = byEmail.getIfPresent(email);
+        if(cached != null) {
+            return Optional.of(cached);
+        }
+        return memberRepository.findByEmail(email).map(this::put);
+    }
+
+    public Optional<CachedMember> findById(Long id) {
+        CachedMember cached = byId.getIfPresent(id);
+        if(cached != null) {
+            return Optional.of(cached);
+        }
+        return memberRepository.findById(id).map(this::put);
+    }
+
+    public CacheStats emailStats() {
+        return byEmail.stats();
+    }
+
+    public CacheStats idStats() {
+        return byId.stats();
+    }
+
+    private CachedMember put(Member member) {
+        CachedMember cached = new CachedMember(member.getId(), member.getEmail(), member.getName(), member.getRole());
+        byEmail.put(cached.email(), cached);
+        byId.put(cached.id(), cached);
+        return cached;
+    }
+
+    public record CachedMember(Long id, String email, String name, Role role) {
+    }
+
+}
@@ -43,7 +43,7 @@ public class MemberService {
         return member;
     }
 
-    // 로그인
+    // 로그인 (비밀번호는 캐시하지 않으므로 항상 DB 조회)
     public Member login(MemberLoginReqDto memberLoginReqDto) {
         Member member = memberRepository.findByEmail(memberLoginReqDto.getEmail()).orElseThrow(() -> new EntityNotFoundException("존재하지 않는 email"));
 
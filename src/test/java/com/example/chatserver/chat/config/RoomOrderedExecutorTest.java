@@ -0,0 +1,112 @@
+package com.example.chatserver.chat.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// virtual thread 모드 : room별 큐 순서 보장, 다른 room은 같은 lane이어도 기다리지 않음, 큐가 가득 차면 바로 거부
+class RoomOrderedExecutorTest {
+
+    private final RoomOrderedExecutor executor = new RoomOrderedExecutor("/publish/", Runnable::run,
+            new VirtualThreadTaskExecutor("test-room-"), 1, 100, 1000);
+
+    @AfterEach
+    void tearDown() throws Exception {
+        executor.destroy();
+    }
+
+    @Test
+    void keepsOrderWithinRoom() throws InterruptedException {
+        List<Integer> processed = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(50);
+        for(int i = 0; i < 50; i++) {
+            int seq = i;
+            executor.execute(send(1L, () -> {
+                processed.add(seq);
+                done.countDown();
+            }));
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(processed).containsExactlyElementsOf(IntStream.range(0, 50).boxed().toList());
+        assertThat(executor.getProcessedCount(0)).isEqualTo(50);
+    }
+
+    @Test
+    void blockedRoomDoesNotDelayOtherRoomsOnSameLane() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherRoomDone = new CountDownLatch(1);
+        executor.execute(send(1L, () -> awaitQuietly(release)));
+        executor.execute(send(2L, otherRoomDone::countDown));
+
+        assertThat(otherRoomDone.await(5, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+    }
+
+    @Test
+    void rejectsWithoutWaitingWhenRoomQueueIsFull() {
+        RoomOrderedExecutor small = new RoomOrderedExecutor("/publish/", Runnable::run,
+                new VirtualThreadTaskExecutor("test-room-"), 1, 1, 1000);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        small.execute(send(1L, () -> {
+            started.countDown();
+            awaitQuietly(release);
+        }));
+        awaitQuietly(started);
+        small.execute(send(1L, () -> {}));
+
+        long startedAt = System.nanoTime();
+        assertThatThrownBy(() -> small.execute(send(1L, () -> {}))).isInstanceOf(RejectedExecutionException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt)).isLessThan(500);
+        assertThat(small.getRejectedCount(0)).isEqualTo(1);
+        release.countDown();
+    }
+
+    private static MessageHandlingRunnable send(Long roomId, Runnable body) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination("/publish/" + roomId);
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        return new MessageHandlingRunnable() {
+            @Override
+            public Message<?> getMessage() {
+                return message;
+            }
+
+            @Override
+            public MessageHandler getMessageHandler() {
+                return m -> {};
+            }
+
+            @Override
+            public void run() {
+                body.run();
+            }
+        };
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.example.chatserver.chat.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// 전송 버퍼 초과 시 : MESSAGE 프레임만 버리고, MESSAGE 외 프레임으로 넘치면 세션을 끊는다
+class SlowConsumerSessionDecoratorTest {
+
+    private static final int BUFFER_LIMIT = 100;
+
+    private final ExecutorService flushExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final CountDownLatch firstSendStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseSend = new CountDownLatch(1);
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+
+    @Test
+    void dropOldestKeepsNonMessageFrames() throws Exception {
+        WebSocketSession delegate = slowSession();
+        SlowConsumerSessionDecorator session = new SlowConsumerSessionDecorator(delegate, SlowConsumerPolicy.DROP_OLDEST, BUFFER_LIMIT, 10000, flushExecutor);
+
+        session.sendMessage(frame("MESSAGE", "first", 10));
+        assertThat(firstSendStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        session.sendMessage(frame("RECEIPT", "receipt", 30));
+        session.sendMessage(frame("MESSAGE", "old", 50));
+        session.sendMessage(frame("MESSAGE", "new", 50));
+        releaseSend.countDown();
+
+        verify(delegate, timeout(5000).times(3)).sendMessage(any());
+        assertThat(sent).containsExactly("first", "receipt", "new");
+        assertThat(session.getDroppedCount()).isEqualTo(1);
+        assertThat(session.isDisconnectedAsSlow()).isFalse();
+    }
+
+    @Test
+    void dropOldestDisconnectsWhenOnlyNonMessageFramesOverflow() throws Exception {
+        WebSocketSession delegate = slowSession();
+        SlowConsumerSessionDecorator session = new SlowConsumerSessionDecorator(delegate, SlowConsumerPolicy.DROP_OLDEST, BUFFER_LIMIT, 10000, flushExecutor);
+
+        session.sendMessage(frame("MESSAGE", "first", 10));
+        assertThat(firstSendStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        session.sendMessage(frame("RECEIPT", "r1", 60));
+        session.sendMessage(frame("RECEIPT", "r2", 60));
+
+        verify(delegate).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(session.isDisconnectedAsSlow()).isTrue();
+        assertThat(session.getDroppedCount()).isZero();
+        releaseSend.countDown();
+    }
+
+    // 첫 전송에서 releaseSend까지 block 되는 세션, 보낸 프레임의 본문 표식을 기록
+    private WebSocketSession slowSession() throws Exception {
+        WebSocketSession delegate = mock(WebSocketSession.class);
+        when(delegate.getId()).thenReturn("s-1");
+        doAnswer(invocation -> {
+            firstSendStarted.countDown();
+            releaseSend.await(5, TimeUnit.SECONDS);
+            String payload = ((TextMessage) invocation.getArgument(0)).getPayload();
+            sent.add(payload.substring(payload.indexOf("\n\n") + 2, payload.indexOf('|')));
+            return null;
+        }).when(delegate).sendMessage(any(WebSocketMessage.class));
+        return delegate;
+    }
+
+    // {command}\n\n{marker}|{padding}\0 : payload 길이가 size 근처가 되도록 padding
+    private static TextMessage frame(String command, String marker, int size) {
+        String head = command + "\n\n" + marker + "|";
+        return new TextMessage(head + "x".repeat(Math.max(0, size - head.length() - 1)) + "\0");
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.example.chatserver.chat.service;
+
+import com.example.chatserver.chat.dto.ChatMessageDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// write-behind 저장 : batch 저장, 실패 시 건별 저장/재시도, 종료 시 큐 비우기 (H2 메모리 DB)
+class ChatMessageWriteBehindServiceTest {
+
+    private static final int BATCH_SIZE = 50;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private ChatMetrics chatMetrics;
+    private ChatMessageWriteBehindService service;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:write-behind-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbcTemplate.execute("CREATE TABLE chat_room (id BIGINT PRIMARY KEY)");
+        jdbcTemplate.execute("CREATE TABLE chat_message (id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                "chat_room_id BIGINT NOT NULL REFERENCES chat_room(id), member_id BIGINT NOT NULL, " +
+                "content VARCHAR(500) NOT NULL, created_time TIMESTAMP, update_time TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO chat_room (id) VALUES (1)");
+
+        chatMetrics = mock(ChatMetrics.class);
+        // flush interval을 길게 두어 연속으로 넣은 메세지가 batch size 단위로 묶이게 한다
+        service = new ChatMessageWriteBehindService(jdbcTemplate, transactionTemplate, mock(UnreadCounterService.class), chatMetrics,
+                true, BATCH_SIZE, 1000, 10000, 100, 10, 50, 2);
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        service.stop();
+    }
+
+    @Test
+    void savesInBatches() throws InterruptedException {
+        for(int i = 0; i < BATCH_SIZE * 2; i++) {
+            assertThat(submit(1L, "m-" + i, LocalDateTime.now())).isTrue();
+        }
+        service.stop();
+
+        assertThat(count()).isEqualTo(BATCH_SIZE * 2);
+        verify(chatMetrics, times(2)).recordSaveBatch(anyLong());
+    }
+
+    @Test
+    void keepsCreatedTimeAndDropsOnlyInvalidMessagesOnFallback() throws InterruptedException {
+        LocalDateTime acceptedAt = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+        submit(1L, "ok-1", acceptedAt);
+        submit(999L, "no-room", acceptedAt);
+        submit(1L, "ok-2", acceptedAt);
+        service.stop();
+
+        List<String> contents = jdbcTemplate.queryForList("SELECT content FROM chat_message ORDER BY id", String.class);
+        assertThat(contents).containsExactly("ok-1", "ok-2");
+        List<LocalDateTime> createdTimes = jdbcTemplate.queryForList("SELECT created_time FROM chat_message", LocalDateTime.class);
+        assertThat(createdTimes).containsOnly(acceptedAt);
+    }
+
+    @Test
+    void retriesUntilDatabaseRecovers() throws InterruptedException {
+        // 일시적인 장애 : 테이블이 잠시 없는 상태
+        jdbcTemplate.execute("ALTER TABLE chat_message RENAME TO chat_message_offline");
+        for(int i = 0; i < 10; i++) {
+            submit(1L, "m-" + i, LocalDateTime.now());
+        }
+        Thread.sleep(1500);
+        jdbcTemplate.execute("ALTER TABLE chat_message_offline RENAME TO chat_message");
+        service.stop();
+
+        assertThat(count()).isEqualTo(10);
+    }
+
+    @Test
+    void rejectsAfterStop() throws InterruptedException {
+        submit(1L, "before-stop", LocalDateTime.now());
+        service.stop();
+
+        assertThat(submit(1L, "after-stop", LocalDateTime.now())).isFalse();
+        assertThat(count()).isEqualTo(1);
+        assertThat(service.queueSize()).isZero();
+    }
+
+    private boolean submit(Long roomId, String message, LocalDateTime createdTime) {
+        return service.submit(roomId, 7L, ChatMessageDto.builder().roomId(roomId).message(message).createdTime(createdTime).build());
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM chat_message", Integer.class);
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.example.chatserver.chat.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+// room별 전달 속도 : 구간마다 상위 room만 태그로 남고, 나머지는 other로 합쳐진다
+class ChatMetricsTest {
+
+    private static final byte[] PAYLOAD = "{}".getBytes(StandardCharsets.UTF_8);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ChatMetrics chatMetrics = new ChatMetrics(registry, 2,
+            provider(), provider(), provider(), provider(), provider(), provider(), provider(), provider());
+
+    @Test
+    void keepsOnlyTopRoomsOfEachWindow() {
+        deliver(1L, 5);
+        deliver(2L, 3);
+        deliver(3L, 1);
+        chatMetrics.rollRoomWindow();
+
+        assertThat(roomRates().keySet()).containsExactlyInAnyOrder("1", "2", "other");
+        assertThat(roomRates().get("1")).isGreaterThan(roomRates().get("2"));
+        assertThat(roomRates().get("other")).isGreaterThan(0);
+
+        // 다음 구간에 바빠진 room이 태그를 가져가고, 조용해진 room은 빠진다
+        deliver(3L, 4);
+        deliver(4L, 2);
+        chatMetrics.rollRoomWindow();
+
+        assertThat(roomRates().keySet()).containsExactlyInAnyOrder("3", "4", "other");
+        assertThat(roomRates().get("other")).isZero();
+    }
+
+    private void deliver(Long roomId, int count) {
+        for(int i = 0; i < count; i++) {
+            chatMetrics.recordDeliver(roomId, PAYLOAD, System.nanoTime());
+        }
+    }
+
+    private Map<String, Double> roomRates() {
+        return registry.find("chat.room.messages.rate").gauges().stream()
+                .collect(Collectors.toMap(g -> g.getId().getTag("room"), Gauge::value));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ObjectProvider<T> provider() {
+        return mock(ObjectProvider.class);
+    }
+
+}
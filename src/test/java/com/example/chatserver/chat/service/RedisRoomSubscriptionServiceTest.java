@@ -0,0 +1,67 @@
+package com.example.chatserver.chat.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+// 구독 destination별 redis 채널 : 채팅(/topic/{roomId})과 읽음(/topic/{roomId}/read)은 따로 세고, 그 외는 구독하지 않는다
+class RedisRoomSubscriptionServiceTest {
+
+    private static final ChannelTopic CHAT_TOPIC = new ChannelTopic(RedisPubSubService.roomChannel(1L));
+    private static final ChannelTopic READ_TOPIC = new ChannelTopic(ReadReceiptService.readChannel(1L));
+
+    private final RedisMessageListenerContainer container = mock(RedisMessageListenerContainer.class);
+    private final RedisPubSubService redisPubSubService = mock(RedisPubSubService.class);
+    private final ReadReceiptService readReceiptService = mock(ReadReceiptService.class);
+    private final RecentMessageCache recentMessageCache = mock(RecentMessageCache.class);
+
+    @SuppressWarnings("unchecked")
+    private final RedisRoomSubscriptionService service = new RedisRoomSubscriptionService(container, redisPubSubService,
+            readReceiptService, recentMessageCache, mock(ObjectProvider.class), "pubsub");
+
+    @Test
+    void readAndPresenceSubscriptionsDoNotOpenChatChannel() {
+        service.subscribe("s-1", "sub-read", "/topic/1/read");
+        service.subscribe("s-1", "sub-presence", "/topic/1/presence");
+
+        verify(container).addMessageListener(readReceiptService, READ_TOPIC);
+        verify(container, never()).addMessageListener(any(RedisPubSubService.class), any(ChannelTopic.class));
+        verifyNoInteractions(recentMessageCache);
+        assertThat(service.getLocalRoomIds()).isEmpty();
+
+        service.unsubscribeAll("s-1");
+        verify(container).removeMessageListener(readReceiptService, READ_TOPIC);
+    }
+
+    @Test
+    void chatChannelIsCountedSeparatelyFromReadChannel() {
+        service.subscribe("s-1", "sub-chat", "/topic/1");
+        service.subscribe("s-2", "sub-chat", "/topic/1");
+        service.subscribe("s-2", "sub-read", "/topic/1/read");
+
+        verify(container, times(1)).addMessageListener(redisPubSubService, CHAT_TOPIC);
+        verify(recentMessageCache).open(1L);
+        assertThat(service.getLocalRoomIds()).containsExactly(1L);
+
+        // 읽음 구독이 끝나도 채팅 구독은 유지
+        service.unsubscribe("s-2", "sub-read");
+        verify(container).removeMessageListener(readReceiptService, READ_TOPIC);
+        service.unsubscribe("s-2", "sub-chat");
+        verify(container, never()).removeMessageListener(redisPubSubService, CHAT_TOPIC);
+
+        service.unsubscribeAll("s-1");
+        verify(container).removeMessageListener(redisPubSubService, CHAT_TOPIC);
+        verify(recentMessageCache).evict(1L);
+        assertThat(service.getLocalRoomIds()).isEmpty();
+    }
+
+}
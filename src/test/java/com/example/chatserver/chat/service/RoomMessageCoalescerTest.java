@@ -0,0 +1,136 @@
+package com.example.chatserver.chat.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+// 바쁜 room 묶음 전송 : rate 전환, 순서, JSON 배열 framing, 종료 시 버퍼 전송, room 간 격리
+class RoomMessageCoalescerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Sent> sent = new CopyOnWriteArrayList<>();
+    private RoomMessageCoalescer coalescer;
+
+    @AfterEach
+    void tearDown() {
+        if(coalescer != null) {
+            coalescer.shutdown();
+        }
+    }
+
+    @Test
+    void quietRoomIsSentImmediately() {
+        coalescer = new RoomMessageCoalescer(this::record, 5, 10_000, 65536);
+
+        coalescer.submit(1L, payload(0), "1-0");
+
+        assertThat(sent).containsExactly(new Sent(1L, "{\"n\":0}", "1-0", 1));
+    }
+
+    @Test
+    void hotRoomIsBatchedAsJsonArrayInOrder() throws Exception {
+        coalescer = new RoomMessageCoalescer(this::record, 3, 20, 65536);
+
+        for(int i = 0; i < 10; i++) {
+            coalescer.submit(1L, payload(i), "1-" + i);
+        }
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> sequence().size() == 10);
+        assertThat(sequence()).containsExactlyElementsOf(IntStream.range(0, 10).boxed().toList());
+        // 임계치 전까지는 단건, 이후는 배열 하나로 (stream id는 마지막 메세지)
+        Sent batch = sent.get(sent.size() - 1);
+        assertThat(sent.subList(0, sent.size() - 1)).allMatch(s -> s.batchSize() == 1);
+        assertThat(batch.batchSize()).isEqualTo(10 - (sent.size() - 1)).isGreaterThan(1);
+        assertThat(objectMapper.readTree(batch.payload()).isArray()).isTrue();
+        assertThat(batch.streamId()).isEqualTo("1-9");
+        assertThat(coalescer.getBatchCount()).isEqualTo(1);
+        assertThat(coalescer.getBatchedMessageCount()).isEqualTo(batch.batchSize());
+    }
+
+    @Test
+    void maxBytesFlushesWithoutWaitingForWindow() throws Exception {
+        coalescer = new RoomMessageCoalescer(this::record, 1, 10_000, 20);
+
+        coalescer.submit(1L, payload(0), "1-0");
+        coalescer.submit(1L, payload(1), "1-1");
+        coalescer.submit(1L, payload(2), "1-2");
+
+        assertThat(sequence()).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    void shutdownSendsBufferedMessages() throws Exception {
+        coalescer = new RoomMessageCoalescer(this::record, 1, 60_000, 65536);
+        for(int i = 0; i < 5; i++) {
+            coalescer.submit(1L, payload(i), "1-" + i);
+        }
+        assertThat(sent).isEmpty();
+
+        coalescer.shutdown();
+        assertThat(sequence()).containsExactly(0, 1, 2, 3, 4);
+
+        // 종료 이후 메세지는 바로 전송
+        coalescer.submit(1L, payload(5), "1-5");
+        assertThat(sequence()).containsExactly(0, 1, 2, 3, 4, 5);
+    }
+
+    @Test
+    void slowRoomDoesNotDelayOtherRooms() {
+        CountDownLatch release = new CountDownLatch(1);
+        coalescer = new RoomMessageCoalescer((roomId, payload, streamId, batchSize) -> {
+            if(roomId == 1L) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            record(roomId, payload, streamId, batchSize);
+        }, 1, 20, 65536);
+
+        coalescer.submit(1L, payload(0), "1-0");
+        coalescer.submit(2L, payload(0), "2-0");
+
+        await().atMost(2, TimeUnit.SECONDS).until(() -> sent.stream().anyMatch(s -> s.roomId() == 2L));
+        release.countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> sent.size() == 2);
+    }
+
+    private void record(Long roomId, byte[] payload, String streamId, int batchSize) {
+        sent.add(new Sent(roomId, new String(payload, StandardCharsets.UTF_8), streamId, batchSize));
+    }
+
+    // 받은 순서대로 n 값을 펼친다 (단건/배열 모두)
+    private List<Integer> sequence() throws Exception {
+        List<Integer> values = new ArrayList<>();
+        for(Sent s : sent) {
+            JsonNode node = objectMapper.readTree(s.payload());
+            if(node.isArray()) {
+                node.forEach(element -> values.add(element.get("n").asInt()));
+            } else {
+                values.add(node.get("n").asInt());
+            }
+        }
+        return values;
+    }
+
+    private static byte[] payload(int n) {
+        return ("{\"n\":" + n + "}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private record Sent(Long roomId, String payload, String streamId, int batchSize) {
+    }
+
+}
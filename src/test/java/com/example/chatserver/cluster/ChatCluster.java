@@ -0,0 +1,233 @@
+package com.example.chatserver.cluster;
+
+import com.example.chatserver.InMemoryChatServer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fppt.jedismock.RedisServer;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.config.ScheduledTask;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// 한 JVM 안에서 ChatserverApplication 여러 개를 포트만 다르게 띄우는 테스트용 클러스터
+// - 모든 노드가 같은 메모리 redis(jedis-mock)와 같은 메모리 DB(H2)를 공유
+// - 테이블은 첫 노드만 만들고(ddl-auto: create) 나머지 노드는 그대로 사용
+// - crash(node)로 노드 장애를 흉내낸다 (종료 처리 없이 해당 노드의 websocket 연결이 모두 끊긴다)
+public final class ChatCluster implements AutoCloseable {
+
+    private final RedisServer redisServer;
+    private final List<ConfigurableApplicationContext> nodes;
+    private final WebSocketStompClient stompClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private ChatCluster(RedisServer redisServer, List<ConfigurableApplicationContext> nodes) {
+        this.redisServer = redisServer;
+        this.nodes = nodes;
+        this.stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        this.stompClient.setMessageConverter(new ByteArrayMessageConverter());
+    }
+
+    public static ChatCluster start(int size, String... extraArgs) throws IOException {
+        RedisServer redisServer = RedisServer.newRedisServer();
+        redisServer.start();
+        String jdbcUrl = "jdbc:h2:mem:cluster-" + System.nanoTime();
+
+        List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+        try {
+            for(int i = 0; i < size; i++) {
+                List<String> args = new ArrayList<>(List.of(extraArgs));
+                args.add("--chat.node-id=node-" + i);
+                if(i > 0) {
+                    args.add("--spring.jpa.hibernate.ddl-auto=none");
+                }
+                nodes.add(InMemoryChatServer.run(redisServer, jdbcUrl, args.toArray(String[]::new)));
+            }
+        } catch (RuntimeException e) {
+            nodes.forEach(ConfigurableApplicationContext::close);
+            redisServer.stop();
+            throw e;
+        }
+        return new ChatCluster(redisServer, nodes);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public <T> T bean(int node, Class<T> type) {
+        return nodes.get(node).getBean(type);
+    }
+
+    public int port(int node) {
+        return Integer.parseInt(nodes.get(node).getEnvironment().getProperty("local.server.port"));
+    }
+
+    public boolean isRunning(int node) {
+        return nodes.get(node).isRunning();
+    }
+
+    // 노드 장애 : 프로세스가 죽은 것처럼 종료 처리(@PreDestroy, presence 정리 등) 없이 멈춘다
+    // - 웹 서버를 멈춰 websocket 연결을 끊고, heartbeat 등 @Scheduled 작업을 취소하고, redis 구독을 멈춘다
+    // - redis에 남은 이 노드의 상태는 다른 노드가 alive TTL 만료로 정리해야 한다 (context는 close()에서 닫는다)
+    public void crash(int node) {
+        ConfigurableApplicationContext context = nodes.get(node);
+        ((WebServerApplicationContext) context).getWebServer().stop();
+        context.getBeansOfType(ScheduledTaskHolder.class).values()
+                .forEach(holder -> holder.getScheduledTasks().forEach(ScheduledTask::cancel));
+        context.getBeansOfType(RedisMessageListenerContainer.class).values()
+                .forEach(RedisMessageListenerContainer::stop);
+    }
+
+    // node의 /ws 로 STOMP 연결 후 /topic/{roomId} 구독
+    public Client connect(int node, String token, long roomId) throws Exception {
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("Authorization", "Bearer " + token);
+        StompSession session = stompClient.connectAsync("ws://localhost:" + port(node) + "/ws", (WebSocketHttpHeaders) null, connectHeaders, new StompSessionHandlerAdapter() {
+        }).get(10, TimeUnit.SECONDS);
+        Client client = new Client(node, token, roomId, session);
+        session.subscribe("/topic/" + roomId, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                client.onFrame(headers.getFirst("stream-id"), (byte[]) payload);
+            }
+        });
+        return client;
+    }
+
+    @Override
+    public void close() throws IOException {
+        stompClient.stop();
+        for(ConfigurableApplicationContext node : nodes) {
+            if(node.isActive()) {
+                node.close();
+            }
+        }
+        redisServer.stop();
+    }
+
+    // STOMP client 1개 : 받은 채팅 메세지 본문(message 필드)을 순서대로 보관
+    public final class Client {
+        private final int node;
+        private final String token;
+        private final long roomId;
+        private final StompSession session;
+        private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        private volatile String lastStreamId;
+
+        private Client(int node, String token, long roomId, StompSession session) {
+            this.node = node;
+            this.token = token;
+            this.roomId = roomId;
+            this.session = session;
+        }
+
+        public int node() {
+            return node;
+        }
+
+        public long roomId() {
+            return roomId;
+        }
+
+        // stream transport : 마지막으로 받은 메세지의 stream-id 헤더
+        public String lastStreamId() {
+            return lastStreamId;
+        }
+
+        // 같은 노드의 REST API 호출 (이 client의 토큰으로 인증)
+        public HttpResponse<String> get(String path) throws IOException, InterruptedException {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port(node) + path))
+                    .header("Authorization", "Bearer " + token)
+                    .GET()
+                    .build();
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        }
+
+        public boolean isConnected() {
+            return session.isConnected();
+        }
+
+        public void send(String message) throws IOException {
+            StompHeaders headers = new StompHeaders();
+            headers.setDestination("/publish/" + roomId);
+            headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            session.send(headers, objectMapper.writeValueAsBytes(Map.of("message", message)));
+        }
+
+        public BlockingQueue<String> received() {
+            return received;
+        }
+
+        // count개를 받을 때까지 기다린 뒤 받은 순서대로 반환 (시간 초과 시 그때까지 받은 것)
+        public List<String> take(int count, Duration timeout) throws InterruptedException {
+            List<String> messages = new ArrayList<>();
+            long deadline = System.nanoTime() + timeout.toNanos();
+            while(messages.size() < count) {
+                String message = received.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if(message == null) break;
+                messages.add(message);
+            }
+            return messages;
+        }
+
+        public void disconnect() {
+            if(session.isConnected()) {
+                session.disconnect();
+            }
+        }
+
+        private void onFrame(String streamId, byte[] payload) {
+            if(streamId != null) {
+                lastStreamId = streamId;
+            }
+            try {
+                JsonNode node = objectMapper.readTree(payload);
+                if(node.isArray()) {
+                    node.forEach(this::onMessage);
+                } else {
+                    onMessage(node);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("메세지 파싱 실패", e);
+            }
+        }
+
+        private void onMessage(JsonNode node) {
+            JsonNode message = node.get("message");
+            if(message != null) {
+                received.add(message.asText());
+            }
+        }
+    }
+
+}
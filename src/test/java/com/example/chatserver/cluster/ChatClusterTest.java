@@ -0,0 +1,201 @@
+package com.example.chatserver.cluster;
+
+import com.example.chatserver.chat.domain.ChatParticipant;
+import com.example.chatserver.chat.domain.ChatRoom;
+import com.example.chatserver.chat.repository.ChatParticipantRepository;
+import com.example.chatserver.chat.repository.ChatRoomRepository;
+import com.example.chatserver.chat.service.PresenceService;
+import com.example.chatserver.chat.service.RedisRoomSubscriptionService;
+import com.example.chatserver.cluster.ChatCluster.Client;
+import com.example.chatserver.common.auth.JwtTokenProvider;
+import com.example.chatserver.member.domain.Member;
+import com.example.chatserver.member.repository.MemberRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+// 여러 노드에 나뉘어 접속한 client 사이의 메세지 전달 (redis pub/sub, stream 경유)
+class ChatClusterTest {
+
+    private static final int NODES = 3;
+    private static final Duration TIMEOUT = Duration.ofSeconds(15);
+
+    private ChatCluster cluster;
+    private long roomId;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if(cluster != null) {
+            cluster.close();
+        }
+    }
+
+    private void startCluster(int size, String... extraArgs) throws Exception {
+        List<String> args = new ArrayList<>(List.of(
+                "--chat.presence.flush-interval-ms=100",
+                "--chat.presence.heartbeat-interval-ms=500",
+                "--chat.presence.alive-ttl-seconds=2",
+                "--chat.presence.event-interval-ms=100"));
+        args.addAll(List.of(extraArgs));
+        cluster = ChatCluster.start(size, args.toArray(String[]::new));
+    }
+
+    // 노드마다 2명씩 접속, 한 명이 보낸 메세지를 모든 client가 유실/중복 없이 보낸 순서대로 받는다 (transport별)
+    @ParameterizedTest
+    @ValueSource(strings = {"pubsub", "stream"})
+    void crossNodeFanOut(String transport, TestReporter testReporter) throws Exception {
+        startCluster(NODES, "--chat.transport=" + transport);
+        List<Client> clients = connectRoomMembers(2);
+        Client sender = clients.get(0);
+
+        int count = 500;
+        long start = System.nanoTime();
+        for(int i = 0; i < count; i++) {
+            sender.send("m-" + i);
+        }
+
+        List<String> expected = new ArrayList<>();
+        for(int i = 0; i < count; i++) {
+            expected.add("m-" + i);
+        }
+        for(Client client : clients) {
+            assertThat(client.take(count, TIMEOUT)).as("node-%d client", client.node()).containsExactlyElementsOf(expected);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        testReporter.publishEntry("cross-node fan-out (" + transport + ")",
+                String.format("%d messages x %d clients (%d nodes) in %.2fs => %.0f deliveries/s",
+                        count, clients.size(), NODES, seconds, count * clients.size() / seconds));
+
+        // 중복 수신 없음 : 잠시 동안 더 받는 메세지가 없어야 한다
+        await("중복 수신 없음").during(Duration.ofMillis(500)).atMost(Duration.ofSeconds(2))
+                .until(() -> clients.stream().allMatch(c -> c.received().isEmpty()));
+    }
+
+    // 노드 하나가 죽어도(종료 처리 없이) 나머지 노드의 client 사이 전달은 계속되고,
+    // 죽은 노드의 접속자는 alive TTL 만료 후 다른 노드가 presence에서 뺀다
+    @Test
+    void nodeFailure() throws Exception {
+        startCluster(NODES);
+        List<Client> clients = connectRoomMembers(1);
+        PresenceService presence = cluster.bean(0, PresenceService.class);
+        await("모든 노드의 접속자 집계").atMost(TIMEOUT).until(() -> presence.getOnlineCount(roomId) == NODES);
+
+        int failed = NODES - 1;
+        cluster.crash(failed);
+        await("죽은 노드의 세션 종료").atMost(TIMEOUT).until(() -> !clients.get(failed).isConnected());
+
+        Client sender = clients.get(0);
+        int count = 100;
+        for(int i = 0; i < count; i++) {
+            sender.send("after-failure-" + i);
+        }
+        for(Client client : clients.subList(0, failed)) {
+            List<String> messages = client.take(count, TIMEOUT);
+            assertThat(messages).as("node-%d client", client.node()).hasSize(count);
+            assertThat(messages.get(count - 1)).isEqualTo("after-failure-" + (count - 1));
+        }
+
+        await("죽은 노드 접속자 제외").atMost(TIMEOUT).until(() -> presence.getOnlineCount(roomId) == NODES - 1);
+    }
+
+    // stream transport : 구독 직후 보낸 메세지도 전달되고, 끊긴 동안의 메세지는 마지막 stream id 이후로 replay
+    @Test
+    void streamTransportDeliversRightAfterSubscribeAndReplaysAfterReconnect() throws Exception {
+        // block-ms를 길게 두어 reader가 XREAD 대기 중에 구독이 들어오게 한다
+        startCluster(2, "--chat.transport=stream", "--chat.stream.block-ms=3000");
+        List<Client> clients = join(1);
+        Client sender = clients.get(0);
+        Client receiver = clients.get(1);
+        for(int node = 0; node < cluster.size(); node++) {
+            RedisRoomSubscriptionService subscriptions = cluster.bean(node, RedisRoomSubscriptionService.class);
+            await("room 구독 반영").atMost(TIMEOUT).until(() -> subscriptions.getLocalRoomIds().contains(roomId));
+        }
+
+        int count = 20;
+        List<String> live = new ArrayList<>();
+        for(int i = 0; i < count; i++) {
+            sender.send("live-" + i);
+            live.add("live-" + i);
+        }
+        assertThat(receiver.take(count, TIMEOUT)).containsExactlyElementsOf(live);
+        String lastStreamId = receiver.lastStreamId();
+        assertThat(lastStreamId).isNotNull();
+
+        // receiver가 끊긴 동안 보낸 메세지
+        receiver.disconnect();
+        List<String> missed = new ArrayList<>();
+        for(int i = 0; i < 10; i++) {
+            sender.send("missed-" + i);
+            missed.add("missed-" + i);
+        }
+        assertThat(sender.take(count + missed.size(), TIMEOUT)).endsWith(missed.toArray(String[]::new));
+
+        HttpResponse<String> replay = receiver.get("/chat/history/" + roomId + "/stream?after=" + lastStreamId);
+        assertThat(replay.statusCode()).isEqualTo(200);
+        List<String> replayed = new ArrayList<>();
+        for(JsonNode message : new ObjectMapper().readTree(replay.body())) {
+            replayed.add(message.get("message").asText());
+        }
+        assertThat(replayed).containsExactlyElementsOf(missed);
+
+        assertThat(receiver.get("/chat/history/" + roomId + "/stream?after=not-an-id").statusCode()).isEqualTo(400);
+        // seq 없는 id는 받은 메세지를 다시 포함할 수 있으므로 거부
+        assertThat(receiver.get("/chat/history/" + roomId + "/stream?after=" + lastStreamId.substring(0, lastStreamId.indexOf('-'))).statusCode()).isEqualTo(400);
+        assertThat(receiver.get("/chat/history/" + roomId + "/stream?after=" + lastStreamId + "&limit=" + Integer.MAX_VALUE).statusCode()).isEqualTo(200);
+    }
+
+    // 노드마다 perNode명씩 같은 room에 참여/접속하고, 모든 client가 메세지를 받을 수 있을 때까지 기다린다
+    // (client 순서 : node-0 client들, node-1 client들, ...)
+    private List<Client> connectRoomMembers(int perNode) throws Exception {
+        List<Client> clients = join(perNode);
+
+        // redis 채널 구독은 비동기로 반영되므로 모든 client가 probe를 받을 때까지 보낸 뒤 수신함을 비운다
+        Client prober = clients.get(0);
+        await("모든 노드 구독 반영").atMost(TIMEOUT).until(() -> {
+            prober.send("probe");
+            return clients.stream().allMatch(c -> c.received().contains("probe"));
+        });
+        // 늦게 도착하는 probe까지 비운다 : 잠시 동안 새로 받는 probe가 없을 때까지
+        await("probe 수신 종료").during(Duration.ofMillis(300)).atMost(TIMEOUT).until(() -> {
+            boolean quiet = clients.stream().allMatch(c -> c.received().isEmpty());
+            clients.forEach(c -> c.received().clear());
+            return quiet;
+        });
+        return clients;
+    }
+
+    // 노드마다 perNode명씩 새 room에 참여시키고 접속/구독만 한다
+    private List<Client> join(int perNode) throws Exception {
+        MemberRepository memberRepository = cluster.bean(0, MemberRepository.class);
+        ChatParticipantRepository chatParticipantRepository = cluster.bean(0, ChatParticipantRepository.class);
+        JwtTokenProvider jwtTokenProvider = cluster.bean(0, JwtTokenProvider.class);
+        ChatRoom chatRoom = cluster.bean(0, ChatRoomRepository.class).save(ChatRoom.builder()
+                .name("cluster-" + UUID.randomUUID()).isGroupChat("Y").build());
+        roomId = chatRoom.getId();
+
+        List<Client> clients = new ArrayList<>();
+        for(int node = 0; node < cluster.size(); node++) {
+            for(int i = 0; i < perNode; i++) {
+                String email = "node" + node + "-" + i + "-" + UUID.randomUUID() + "@cluster.test";
+                Member member = memberRepository.save(Member.builder().name(email).email(email).password("password").build());
+                chatParticipantRepository.save(ChatParticipant.builder().chatRoom(chatRoom).member(member).build());
+                clients.add(cluster.connect(node, jwtTokenProvider.createToken(email, member.getRole().toString()), roomId));
+            }
+        }
+        return clients;
+    }
+
+}
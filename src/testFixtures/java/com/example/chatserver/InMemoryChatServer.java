@@ -0,0 +1,99 @@
+package com.example.chatserver;
+
+import com.github.fppt.jedismock.RedisServer;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 외부 DB/redis 없이 띄우는 서버 : H2(MySQL 모드) + jedis-mock (벤치마크, 부하 테스트, 클러스터 테스트용)
+// application.yml의 환경변수 값을 덮어써야 하므로 기본 properties가 아닌 실행 인자로 전달
+// 단독 실행 : ./gradlew localServer (부하 테스트 대상)
+public final class InMemoryChatServer implements AutoCloseable {
+
+    // HS512 서명용 64 byte key
+    public static final String JWT_SECRET = Base64.getEncoder().encodeToString("0123456789abcdef".repeat(4).getBytes(StandardCharsets.UTF_8));
+
+    private final RedisServer redisServer;
+    private final ConfigurableApplicationContext context;
+
+    private InMemoryChatServer(RedisServer redisServer, ConfigurableApplicationContext context) {
+        this.redisServer = redisServer;
+        this.context = context;
+    }
+
+    public static void main(String[] args) throws IOException {
+        InMemoryChatServer server = start(args);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException ignored) {
+            }
+        }));
+        // 비교 스크립트(src/loadtest/compare.sh)가 이 줄에서 pid를 읽어 종료한다
+        System.out.println("in-memory chat server started on port " + server.getPort() + " pid=" + ProcessHandle.current().pid());
+    }
+
+    // 메모리 redis를 새로 띄워서 서버 1개 실행
+    public static InMemoryChatServer start(String... extraArgs) throws IOException {
+        RedisServer redisServer = RedisServer.newRedisServer();
+        redisServer.start();
+        try {
+            return new InMemoryChatServer(redisServer, run(redisServer, "jdbc:h2:mem:chat-" + System.nanoTime(), extraArgs));
+        } catch (RuntimeException e) {
+            redisServer.stop();
+            throw e;
+        }
+    }
+
+    // 이미 떠 있는 redis, DB를 공유하는 서버 실행 (클러스터 구성 시 노드마다 호출, redis 종료는 호출한 쪽 책임)
+    public static ConfigurableApplicationContext run(RedisServer redisServer, String jdbcUrl, String... extraArgs) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("management.server.port", "0");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.datasource.url", jdbcUrl + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.database", "h2");
+        properties.put("spring.jpa.database-platform", "org.hibernate.dialect.H2Dialect");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.data.redis.host", redisServer.getHost());
+        properties.put("spring.data.redis.port", Integer.toString(redisServer.getBindPort()));
+        properties.put("jwt.secretKey", JWT_SECRET);
+        properties.put("logging.level.root", "WARN");
+
+        // 같은 이름을 두 번 넘기면 "0,8080" 처럼 합쳐지므로 기본값을 덮어쓴다
+        for(String arg : extraArgs) {
+            int eq = arg.indexOf('=');
+            if(!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("--name=value 형식이 아닙니다 : " + arg);
+            }
+            properties.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+
+        String[] args = properties.entrySet().stream()
+                .map(e -> "--" + e.getKey() + "=" + e.getValue())
+                .toArray(String[]::new);
+        return SpringApplication.run(ChatserverApplication.class, args);
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public int getPort() {
+        return Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        redisServer.stop();
+    }
+
+}